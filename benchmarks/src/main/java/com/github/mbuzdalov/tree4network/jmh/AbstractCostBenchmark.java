@@ -0,0 +1,48 @@
+package com.github.mbuzdalov.tree4network.jmh;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.cost.*;
+import com.github.mbuzdalov.tree4network.rmq.FlatSparseTableRMQ;
+import com.github.mbuzdalov.tree4network.rmq.LinSpaceIncrementalRMQ;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * <p>Measures the time to compute the cost of a single tree on the bundled datasets.</p>
+ * <p>Several different trees are evaluated in turn, so that no algorithm can reuse the state
+ * from the previous call with the same tree.</p>
+ * <p>The parameters are declared by the subclasses, so that each of them runs only the supported combinations:
+ * see {@link CostBenchmark} and {@link BSTCostBenchmark}.</p>
+ */
+@State(Scope.Thread)
+public abstract class AbstractCostBenchmark {
+    private static final int N_TREES = 8;
+
+    private Graph weights;
+    private BoundedSimpleGraph[] trees;
+    private CostComputationAlgorithm costAlgo;
+    private int nextTree;
+
+    protected void init(String dataset, int maxDegree, String shape, String algorithm) {
+        weights = Instances.loadDataset(dataset);
+        trees = Instances.trees(weights, maxDegree, shape, N_TREES, Instances.random(dataset.hashCode()));
+        int n = weights.nVertices();
+        costAlgo = switch (algorithm) {
+            case "naive" -> NaiveCostComputationAlgorithm.getInstance();
+            case "rmq" -> new RMQCostComputationAlgorithm(n);
+            case "rmqEuler" -> new RMQCostComputationAlgorithm(n, false, false, FlatSparseTableRMQ::new);
+            case "rmqLinear" -> new RMQCostComputationAlgorithm(n, false, LinSpaceIncrementalRMQ::new);
+            case "tarjan" -> new TarjanCostComputationAlgorithm(n);
+            case "dense" -> new DenseCostComputationAlgorithm(n);
+            case "default" -> new DefaultCostComputationAlgorithm(n);
+            default -> throw new IllegalArgumentException("Unknown algorithm: '" + algorithm + "'");
+        };
+    }
+
+    @Benchmark
+    public long compute() {
+        BoundedSimpleGraph tree = trees[nextTree];
+        nextTree = (nextTree + 1) % N_TREES;
+        return costAlgo.compute(weights, tree);
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.mbuzdalov.tree4network.jmh;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.rmq.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+
+/**
+ * <p>Measures the range minimum query structures on the queries the cost computation actually makes:
+ * the array is built from a tree for one of the bundled datasets, and the queries are the demand pairs
+ * of this dataset. Unlike the uniformly random queries of {@link RMQBenchmark}, these are mostly short,
+ * as good trees keep the heavy demands close.</p>
+ * <p>The array is either the depths along the Euler tour of the tree, see {@link TourRMQBenchmark},
+ * or the depths of the vertices in the preorder, see {@link PreorderTourRMQBenchmark}, the latter being
+ * not supported by {@code linIncremental}. The time of {@code query} is for all the demand pairs.</p>
+ */
+@State(Scope.Thread)
+public abstract class AbstractTourRMQBenchmark {
+    private RangeMinimumQuery structure;
+    private int size;
+    private int[] queryFrom, queryUntil, queryResults;
+
+    protected void init(String dataset, String shape, int maxDegree, boolean preorder, String rmq) {
+        Graph weights = Instances.loadDataset(dataset);
+        BoundedSimpleGraph tree = Instances.trees(weights, maxDegree, shape, 1, Instances.random(dataset.hashCode()))[0];
+        int n = tree.nVertices();
+        if (preorder && rmq.equals("linIncremental")) {
+            throw new IllegalArgumentException("The preorder layout is not supported by linIncremental");
+        }
+
+        int[] values = new int[preorder ? n : 2 * n];
+        int[] indices = new int[n];
+        size = fillDepths(tree, preorder, values, indices);
+        structure = switch (rmq) {
+            case "naive" -> new NaiveRMQ(values);
+            case "linLog" -> new LinLogSpaceRMQ(values);
+            case "flat" -> new FlatSparseTableRMQ(values);
+            case "linIncremental" -> new LinSpaceIncrementalRMQ(values);
+            default -> throw new IllegalArgumentException("Unknown RMQ: '" + rmq + "'");
+        };
+        structure.reloadArray(size);
+
+        // Every demand is queried once, in the order the cost computation queries them
+        int nQueries = 0;
+        queryFrom = new int[weights.nEdges()];
+        queryUntil = new int[weights.nEdges()];
+        for (int v = 0; v < n; ++v) {
+            int degree = weights.degree(v);
+            for (int j = 0; j < degree; ++j) {
+                int i1 = indices[v];
+                int i2 = indices[weights.getDestination(v, j)];
+                if (i1 < i2) {
+                    queryFrom[nQueries] = preorder ? i1 + 1 : i1;
+                    queryUntil[nQueries] = i2 + 1;
+                    ++nQueries;
+                }
+            }
+        }
+        if (nQueries < queryFrom.length) {
+            queryFrom = Arrays.copyOf(queryFrom, nQueries);
+            queryUntil = Arrays.copyOf(queryUntil, nQueries);
+        }
+        queryResults = new int[nQueries];
+    }
+
+    // Fills the depths along the Euler tour, or in the preorder, and the first positions of the vertices there.
+    // Returns the number of values filled.
+    private static int fillDepths(BoundedSimpleGraph tree, boolean preorder, int[] depths, int[] indices) {
+        int n = tree.nVertices();
+        int[] stack = new int[n];
+        int[] parents = new int[n];
+        int[] nextChild = new int[n];
+        int size = 0, top = 0;
+        parents[0] = -1;
+        indices[0] = 0;
+        depths[size++] = 0;
+        while (top >= 0) {
+            int v = stack[top];
+            if (nextChild[v] < tree.degree(v)) {
+                int next = tree.getDestination(v, nextChild[v]++);
+                if (next != parents[v]) {
+                    parents[next] = v;
+                    stack[++top] = next;
+                    indices[next] = size;
+                    depths[size++] = top;
+                }
+            } else if (--top >= 0 && !preorder) {
+                depths[size++] = top;
+            }
+        }
+        return size;
+    }
+
+    @Benchmark
+    public void build() {
+        structure.reloadArray(size);
+    }
+
+    @Benchmark
+    public long query() {
+        long result = 0;
+        for (int i = 0; i < queryFrom.length; ++i) {
+            result += structure.minimumValue(queryFrom[i], queryUntil[i]);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int[] queryBulk() {
+        for (int i = 0; i < queryFrom.length; ++i) {
+            queryResults[i] = structure.minimumIndex(queryFrom[i], queryUntil[i]);
+        }
+        return queryResults;
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.mbuzdalov.tree4network.jmh;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost computation on the trees found by the BST algorithms, which are balanced,
+ * for the bundled datasets small enough for these algorithms, that is, all but {@code FacebookBig}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BSTCostBenchmark extends AbstractCostBenchmark {
+    @Param({"Facebook", "HPC", "Microsoft", "ProjecToR", "pFabric",
+            "art00", "art25", "art50", "art75", "art90"})
+    public String dataset;
+
+    @Param({"3", "4"})
+    public int maxDegree;
+
+    @Param({"naive", "rmq", "rmqEuler", "rmqLinear", "tarjan", "dense", "default"})
+    public String algorithm;
+
+    @Setup
+    public void setup() {
+        init(dataset, maxDegree, "bst", algorithm);
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.mbuzdalov.tree4network.jmh;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.algo.BestBSTOverRandomPermutations;
+import com.github.mbuzdalov.tree4network.algo.BestMSTOverEdgeShuffle;
+import com.github.mbuzdalov.tree4network.algo.BestTreeAlgorithm;
+import com.github.mbuzdalov.tree4network.io.GraphFromCSV;
+import com.github.mbuzdalov.tree4network.util.DisjointSet;
+import com.github.mbuzdalov.tree4network.util.Timer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * <p>Loads the bundled datasets and builds the trees of various shapes to run the benchmarks on.</p>
+ * <p>The datasets are looked up in the directory given by the system property {@code tree4network.data},
+ * or in {@code data} or {@code ../data} if the property is not set.</p>
+ */
+final class Instances {
+    private Instances() {}
+
+    // The BST algorithms need quadratic memory, so they are too heavy above this size
+    private static final int MAX_VERTICES_FOR_BST = 4096;
+
+    static Graph loadDataset(String name) {
+        File file = new File(dataDirectory(), name + ".csv.gz");
+        try {
+            return GraphFromCSV.fromGZippedFile(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read dataset " + file, e);
+        }
+    }
+
+    private static File dataDirectory() {
+        String property = System.getProperty("tree4network.data");
+        if (property != null) {
+            return new File(property);
+        }
+        File local = new File("data");
+        return local.isDirectory() ? local : new File("../data");
+    }
+
+    static RandomGenerator random(long seed) {
+        return RandomGeneratorFactory.of("L32X64MixRandom").create(seed);
+    }
+
+    /**
+     * Creates the trees of the given shape, which is one of "random", "mst" and "bst".
+     */
+    static BoundedSimpleGraph[] trees(Graph weights, int maxDegree, String shape, int count, RandomGenerator random) {
+        BoundedSimpleGraph[] result = new BoundedSimpleGraph[count];
+        switch (shape) {
+            case "random" -> {
+                for (int i = 0; i < count; ++i) {
+                    result[i] = randomTree(weights.nVertices(), maxDegree, random);
+                }
+            }
+            case "mst" -> fromAlgorithm(new BestMSTOverEdgeShuffle(), weights, maxDegree, random, result);
+            case "bst" -> {
+                if (weights.nVertices() > MAX_VERTICES_FOR_BST || maxDegree < 3) {
+                    throw new IllegalArgumentException("BST trees are not supported for " + weights.nVertices()
+                            + " vertices and maximum degree " + maxDegree + ", please exclude this combination");
+                }
+                // BST trees have the maximum degree of 3, which fits any larger bound
+                fromAlgorithm(new BestBSTOverRandomPermutations(), weights, 3, random, result);
+                for (int i = 0; i < count; ++i) {
+                    result[i] = result[i].copyWithNewMaximumDegree(maxDegree);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown tree shape: '" + shape + "'");
+        }
+        return result;
+    }
+
+    private static void fromAlgorithm(BestTreeAlgorithm algorithm, Graph weights, int maxDegree,
+                                      RandomGenerator random, BoundedSimpleGraph[] result) {
+        BestTreeAlgorithm.ResultSupplier supplier = algorithm.construct(weights, maxDegree);
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = supplier.next(Timer.dummyTimer(), random).tree();
+        }
+    }
+
+    private static BoundedSimpleGraph randomTree(int n, int maxDegree, RandomGenerator random) {
+        BoundedSimpleGraph tree = new BoundedSimpleGraph(n, maxDegree);
+        DisjointSet ds = new DisjointSet(n);
+        while (tree.nEdges() + 1 < n) {
+            int v1, v2;
+            do {
+                v1 = random.nextInt(n);
+                v2 = random.nextInt(n);
+            } while (tree.degree(v1) == maxDegree || tree.degree(v2) == maxDegree || ds.get(v1) == ds.get(v2));
+            ds.unite(v1, v2);
+            tree.addEdge(v1, v2);
+        }
+        return tree;
+    }
+}
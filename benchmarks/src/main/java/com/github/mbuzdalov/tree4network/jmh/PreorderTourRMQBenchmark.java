@@ -0,0 +1,36 @@
+package com.github.mbuzdalov.tree4network.jmh;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the range minimum query structures on the depths of the vertices of a tree in the preorder,
+ * which {@code linIncremental} does not support.
+ * The {@code bst} tree shape may be chosen with {@code -p} for all the datasets but {@code FacebookBig}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreorderTourRMQBenchmark extends AbstractTourRMQBenchmark {
+    @Param({"Facebook", "FacebookBig", "HPC", "Microsoft", "ProjecToR", "pFabric",
+            "art00", "art25", "art50", "art75", "art90"})
+    public String dataset;
+
+    @Param({"mst"})
+    public String shape;
+
+    @Param({"3"})
+    public int maxDegree;
+
+    @Param({"naive", "linLog", "flat"})
+    public String rmq;
+
+    @Setup
+    public void setup() {
+        init(dataset, shape, maxDegree, true, rmq);
+    }
+}
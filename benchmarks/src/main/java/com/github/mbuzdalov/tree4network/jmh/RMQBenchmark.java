@@ -0,0 +1,78 @@
+package com.github.mbuzdalov.tree4network.jmh;
+
+import com.github.mbuzdalov.tree4network.rmq.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * <p>Measures the time to build the range minimum query structures, and to answer random queries,
+ * on arrays whose adjacent elements differ by exactly one, like the depths in an Euler tour of a tree.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RMQBenchmark {
+    private static final int N_QUERIES = 1024;
+
+    @Param({"1024", "65536", "1048576"})
+    public int size;
+
+    @Param({"naive", "linLog", "flat", "linIncremental"})
+    public String rmq;
+
+    private RangeMinimumQuery structure;
+    private final int[] queryFrom = new int[N_QUERIES];
+    private final int[] queryUntil = new int[N_QUERIES];
+    private final int[] queryResults = new int[N_QUERIES];
+
+    @Setup
+    public void setup() {
+        RandomGenerator random = Instances.random(size);
+        int[] values = new int[size];
+        for (int i = 1; i < size; ++i) {
+            values[i] = values[i - 1] == 0 || random.nextBoolean() ? values[i - 1] + 1 : values[i - 1] - 1;
+        }
+        structure = switch (rmq) {
+            case "naive" -> new NaiveRMQ(values);
+            case "linLog" -> new LinLogSpaceRMQ(values);
+            case "flat" -> new FlatSparseTableRMQ(values);
+            case "linIncremental" -> new LinSpaceIncrementalRMQ(values);
+            default -> throw new IllegalArgumentException("Unknown RMQ: '" + rmq + "'");
+        };
+        structure.reloadArray(size);
+        for (int i = 0; i < N_QUERIES; ++i) {
+            int a = random.nextInt(size), b = random.nextInt(size);
+            queryFrom[i] = Math.min(a, b);
+            queryUntil[i] = Math.max(a, b) + 1;
+        }
+    }
+
+    @Benchmark
+    public void build() {
+        structure.reloadArray(size);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public long query() {
+        long result = 0;
+        for (int i = 0; i < N_QUERIES; ++i) {
+            result += structure.minimumIndex(queryFrom[i], queryUntil[i]);
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public int[] queryBulk() {
+        for (int i = 0; i < N_QUERIES; ++i) {
+            queryResults[i] = structure.minimumIndex(queryFrom[i], queryUntil[i]);
+        }
+        return queryResults;
+    }
+}
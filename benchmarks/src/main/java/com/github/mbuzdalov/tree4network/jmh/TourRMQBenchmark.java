@@ -0,0 +1,35 @@
+package com.github.mbuzdalov.tree4network.jmh;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the range minimum query structures on the depths along the Euler tour of a tree.
+ * The {@code bst} tree shape may be chosen with {@code -p} for all the datasets but {@code FacebookBig}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TourRMQBenchmark extends AbstractTourRMQBenchmark {
+    @Param({"Facebook", "FacebookBig", "HPC", "Microsoft", "ProjecToR", "pFabric",
+            "art00", "art25", "art50", "art75", "art90"})
+    public String dataset;
+
+    @Param({"mst"})
+    public String shape;
+
+    @Param({"3"})
+    public int maxDegree;
+
+    @Param({"naive", "linLog", "flat", "linIncremental"})
+    public String rmq;
+
+    @Setup
+    public void setup() {
+        init(dataset, shape, maxDegree, false, rmq);
+    }
+}
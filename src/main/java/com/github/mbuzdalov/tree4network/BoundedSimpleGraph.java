@@ -8,6 +8,7 @@ public final class BoundedSimpleGraph {
     private final int maxDegreePlusOne;
     private final int[] state; // state[0] is degree, state[1..d] are adjacent vertices
     private int nEdges;
+    private int modificationCount;
 
     public BoundedSimpleGraph(int n, int maxDegree) {
         this.maxDegreePlusOne = maxDegree + 1;
@@ -58,6 +59,10 @@ public final class BoundedSimpleGraph {
         return nEdges;
     }
 
+    public int modificationCount() {
+        return modificationCount;
+    }
+
     public boolean hasEdge(int a, int b) {
         int ao = a * maxDegreePlusOne;
         int d = state[ao];
@@ -85,12 +90,14 @@ public final class BoundedSimpleGraph {
         addOneEdge(ao, b);
         addOneEdge(bo, a);
         ++nEdges;
+        ++modificationCount;
     }
 
     public void removeEdge(int a, int b) {
         removeOneEdge(a * maxDegreePlusOne, b);
         removeOneEdge(b * maxDegreePlusOne, a);
         --nEdges;
+        ++modificationCount;
     }
 
     @Override
@@ -0,0 +1,75 @@
+package com.github.mbuzdalov.tree4network;
+
+/**
+ * <p>A graph in the compressed sparse row format: the edge ends of all vertices are stored contiguously
+ * in the destination and weight arrays, and the offsets array tells where the edge ends of each vertex begin.</p>
+ */
+public final class CSRGraph extends Graph {
+    private final int[] offsets;
+    private final int[] upperOffsets;
+    private final int[] destinations;
+    private final int[] weights;
+
+    // offsets has one element more than there are vertices, the last one being the total number of edge ends
+    CSRGraph(int[] offsets, int[] upperOffsets, int[] destinations, int[] weights) {
+        this.offsets = offsets;
+        this.upperOffsets = upperOffsets;
+        this.destinations = destinations;
+        this.weights = weights;
+    }
+
+    // Changes the weight of a single edge end, only for DynamicGraph, which keeps both ends consistent
+    void setWeightAt(int edge, int weight) {
+        weights[edge] = weight;
+    }
+
+    @Override
+    public int nVertices() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public int nEdges() {
+        return destinations.length >>> 1;
+    }
+
+    @Override
+    public int degree(int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    @Override
+    public int getDestination(int source, int index) {
+        return destinations[offsets[source] + index];
+    }
+
+    @Override
+    public int getWeight(int source, int index) {
+        return weights[offsets[source] + index];
+    }
+
+    @Override
+    public int edgesBegin(int vertex) {
+        return offsets[vertex];
+    }
+
+    @Override
+    public int upperEdgesBegin(int vertex) {
+        return upperOffsets[vertex];
+    }
+
+    @Override
+    public int edgesEnd(int vertex) {
+        return offsets[vertex + 1];
+    }
+
+    @Override
+    public int destinationAt(int edge) {
+        return destinations[edge];
+    }
+
+    @Override
+    public int weightAt(int edge) {
+        return weights[edge];
+    }
+}
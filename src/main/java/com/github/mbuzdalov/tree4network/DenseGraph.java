@@ -0,0 +1,105 @@
+package com.github.mbuzdalov.tree4network;
+
+/**
+ * <p>A graph which, in addition to the adjacency lists of the graph it wraps, stores the full weight matrix,
+ * so that the weight between any two vertices is found in constant time.</p>
+ * <p>The matrix takes {@code 4 * n * n} bytes, so this is worth it only for small dense graphs,
+ * see {@link #isDenseEnough(Graph)}. The weights of parallel edges are summed up in the matrix.</p>
+ */
+public final class DenseGraph extends Graph {
+    // Above this number of vertices, the matrix takes more than 64 megabytes
+    private static final int MAX_VERTICES = 4096;
+
+    private final Graph graph;
+    private final int n;
+    private final int[] matrix;
+
+    public DenseGraph(Graph graph) {
+        if (graph.nVertices() > MAX_VERTICES) {
+            throw new IllegalArgumentException("Graph is too large for a dense representation: "
+                    + graph.nVertices() + " vertices");
+        }
+        this.graph = graph;
+        n = graph.nVertices();
+        matrix = new int[n * n];
+        for (int v = 0; v < n; ++v) {
+            int rowOffset = v * n;
+            for (int e = graph.edgesBegin(v), end = graph.edgesEnd(v); e < end; ++e) {
+                matrix[rowOffset + graph.destinationAt(e)] += graph.weightAt(e);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given graph is small enough, and dense enough, to be worth a {@link DenseGraph}.
+     * This is the case when at least a quarter of all vertex pairs have demands.
+     *
+     * @param graph the graph to check.
+     * @return {@code true} if the graph shall be wrapped into a {@link DenseGraph}, {@code false} otherwise.
+     */
+    public static boolean isDenseEnough(Graph graph) {
+        long n = graph.nVertices();
+        return n <= MAX_VERTICES && 8L * graph.nEdges() >= n * (n - 1);
+    }
+
+    /**
+     * Returns the total weight of the edges between the given vertices, or zero if there are no such edges.
+     *
+     * @param u the first vertex.
+     * @param v the second vertex.
+     * @return the weight between the vertices.
+     */
+    public int weight(int u, int v) {
+        return matrix[u * n + v];
+    }
+
+    @Override
+    public int nVertices() {
+        return n;
+    }
+
+    @Override
+    public int nEdges() {
+        return graph.nEdges();
+    }
+
+    @Override
+    public int degree(int vertex) {
+        return graph.degree(vertex);
+    }
+
+    @Override
+    public int getDestination(int source, int index) {
+        return graph.getDestination(source, index);
+    }
+
+    @Override
+    public int getWeight(int source, int index) {
+        return graph.getWeight(source, index);
+    }
+
+    @Override
+    public int edgesBegin(int vertex) {
+        return graph.edgesBegin(vertex);
+    }
+
+    @Override
+    public int upperEdgesBegin(int vertex) {
+        return graph.upperEdgesBegin(vertex);
+    }
+
+    @Override
+    public int edgesEnd(int vertex) {
+        return graph.edgesEnd(vertex);
+    }
+
+    @Override
+    public int destinationAt(int edge) {
+        return graph.destinationAt(edge);
+    }
+
+    @Override
+    public int weightAt(int edge) {
+        return graph.weightAt(edge);
+    }
+}
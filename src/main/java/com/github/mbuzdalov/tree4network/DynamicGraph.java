@@ -0,0 +1,182 @@
+package com.github.mbuzdalov.tree4network;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>A graph whose edge weights can change over time, such as a demand graph for a drifting traffic matrix.</p>
+ * <p>The changes are collected with {@link #setWeight(int, int, int)} and become visible only after
+ * {@link #applyUpdates()}, which returns the graph of the weight differences. Since the cost of a tree
+ * is linear in the weights, the new cost of any tree is its old cost plus its cost on the differences,
+ * which is cheap to compute when only few demands have changed.</p>
+ * <p>The weights of the existing edges are changed in place, and the graph is rebuilt only when
+ * new edges appear or some edges get zero weights, so that the graph never has edges of zero weight,
+ * which would otherwise be counted by {@link #nEdges()} and visited by the algorithms.
+ * The graph shall not be updated while some algorithm is running on it,
+ * and graphs derived from it, such as {@link DenseGraph}, are not updated.</p>
+ */
+public final class DynamicGraph extends Graph {
+    private CSRGraph graph;
+
+    // The pending updates in the order they were made, the arrays grow as needed
+    private int[] sources = new int[16], destinations = new int[16], weights = new int[16];
+    private int nUpdates;
+
+    public DynamicGraph(Graph initial) {
+        int n = initial.nVertices();
+        GraphBuilder builder = new GraphBuilder(initial.nEdges()).setNumberOfVertices(n).setMergeParallelEdges(true);
+        for (int v = 0; v < n; ++v) {
+            for (int e = initial.upperEdgesBegin(v), end = initial.edgesEnd(v); e < end; ++e) {
+                if (initial.weightAt(e) != 0) {
+                    builder.addEdge(v, initial.destinationAt(e), initial.weightAt(e));
+                }
+            }
+        }
+        graph = builder.result();
+    }
+
+    /**
+     * Schedules the change of the weight of the demand between the given vertices.
+     * If several changes are made to the same pair of vertices, the last one wins.
+     *
+     * @param v1 the first vertex.
+     * @param v2 the second vertex.
+     * @param weight the new weight, zero to remove the demand.
+     */
+    public void setWeight(int v1, int v2, int weight) {
+        int n = graph.nVertices();
+        if (v1 == v2 || v1 < 0 || v2 < 0 || v1 >= n || v2 >= n) {
+            throw new IllegalArgumentException("Invalid vertex pair (" + v1 + ", " + v2 + ") for " + n + " vertices");
+        }
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight is negative: " + weight);
+        }
+        if (nUpdates == sources.length) {
+            int newCapacity = nUpdates + (nUpdates >>> 1);
+            sources = Arrays.copyOf(sources, newCapacity);
+            destinations = Arrays.copyOf(destinations, newCapacity);
+            weights = Arrays.copyOf(weights, newCapacity);
+        }
+        sources[nUpdates] = v1;
+        destinations[nUpdates] = v2;
+        weights[nUpdates] = weight;
+        ++nUpdates;
+    }
+
+    public int nPendingUpdates() {
+        return nUpdates;
+    }
+
+    /**
+     * Applies all the pending changes and returns the graph whose edges are the changed demands
+     * and whose weights are the differences between the new and the old weights, which may be negative.
+     *
+     * @return the graph of the weight differences.
+     */
+    public Graph applyUpdates() {
+        int n = graph.nVertices();
+        GraphBuilder differences = new GraphBuilder(nUpdates).setNumberOfVertices(n).setMergeParallelEdges(true);
+        // The pairs which are not yet in the graph, with their latest weights
+        Map<Long, Integer> newPairs = new HashMap<>();
+        boolean hasRemovedEdges = false;
+        for (int i = 0; i < nUpdates; ++i) {
+            int v1 = Math.min(sources[i], destinations[i]);
+            int v2 = Math.max(sources[i], destinations[i]);
+            int w = weights[i];
+            long key = ((long) (v1) << 32) | v2;
+            int upperEnd = newPairs.containsKey(key) ? -1 : find(graph.upperEdgesBegin(v1), graph.edgesEnd(v1), v2);
+            if (upperEnd >= 0) {
+                int lowerEnd = find(graph.edgesBegin(v2), graph.upperEdgesBegin(v2), v1);
+                differences.addEdge(v1, v2, w - graph.weightAt(upperEnd));
+                graph.setWeightAt(upperEnd, w);
+                graph.setWeightAt(lowerEnd, w);
+                hasRemovedEdges |= w == 0;
+            } else if (w != 0 || newPairs.containsKey(key)) {
+                newPairs.put(key, w);
+            }
+        }
+        nUpdates = 0;
+
+        if (!newPairs.isEmpty() || hasRemovedEdges) {
+            GraphBuilder builder = new GraphBuilder(graph.nEdges() + newPairs.size()).setNumberOfVertices(n);
+            for (int v = 0; v < n; ++v) {
+                for (int e = graph.upperEdgesBegin(v), end = graph.edgesEnd(v); e < end; ++e) {
+                    if (graph.weightAt(e) != 0) {
+                        builder.addEdge(v, graph.destinationAt(e), graph.weightAt(e));
+                    }
+                }
+            }
+            for (Map.Entry<Long, Integer> entry : newPairs.entrySet()) {
+                int v1 = (int) (entry.getKey() >>> 32);
+                int v2 = (int) (long) entry.getKey();
+                int w = entry.getValue();
+                if (w != 0) {
+                    builder.addEdge(v1, v2, w);
+                    differences.addEdge(v1, v2, w);
+                }
+            }
+            graph = builder.result();
+        }
+        return differences.result();
+    }
+
+    private int find(int begin, int end, int destination) {
+        for (int e = begin; e < end; ++e) {
+            if (graph.destinationAt(e) == destination) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int nVertices() {
+        return graph.nVertices();
+    }
+
+    @Override
+    public int nEdges() {
+        return graph.nEdges();
+    }
+
+    @Override
+    public int degree(int vertex) {
+        return graph.degree(vertex);
+    }
+
+    @Override
+    public int getDestination(int source, int index) {
+        return graph.getDestination(source, index);
+    }
+
+    @Override
+    public int getWeight(int source, int index) {
+        return graph.getWeight(source, index);
+    }
+
+    @Override
+    public int edgesBegin(int vertex) {
+        return graph.edgesBegin(vertex);
+    }
+
+    @Override
+    public int upperEdgesBegin(int vertex) {
+        return graph.upperEdgesBegin(vertex);
+    }
+
+    @Override
+    public int edgesEnd(int vertex) {
+        return graph.edgesEnd(vertex);
+    }
+
+    @Override
+    public int destinationAt(int edge) {
+        return graph.destinationAt(edge);
+    }
+
+    @Override
+    public int weightAt(int edge) {
+        return graph.weightAt(edge);
+    }
+}
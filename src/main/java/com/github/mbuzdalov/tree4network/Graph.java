@@ -1,9 +1,25 @@
 package com.github.mbuzdalov.tree4network;
 
+/**
+ * <p>An undirected weighted graph, where each edge is stored as two edge ends, one per each of its vertices.</p>
+ * <p>The edge ends are accessed either by the vertex and the index within this vertex,
+ * or by the global edge end index, such that the edge ends of a vertex {@code v} have the indices
+ * from {@code edgesBegin(v)} inclusively to {@code edgesEnd(v)} exclusively.
+ * The latter is cheaper in the hot loops, as it needs only one array access per value.</p>
+ * <p>The edge ends of each vertex to the vertices with smaller indices come first, and the ones to the vertices
+ * with larger indices start at {@code upperEdgesBegin(v)}. Iterating from {@code upperEdgesBegin(v)}
+ * to {@code edgesEnd(v)} for all vertices visits every edge exactly once.</p>
+ */
 public abstract class Graph {
     public abstract int nVertices();
     public abstract int nEdges();
     public abstract int degree(int vertex);
     public abstract int getDestination(int source, int index);
     public abstract int getWeight(int source, int index);
+
+    public abstract int edgesBegin(int vertex);
+    public abstract int upperEdgesBegin(int vertex);
+    public abstract int edgesEnd(int vertex);
+    public abstract int destinationAt(int edge);
+    public abstract int weightAt(int edge);
 }
@@ -1,12 +1,34 @@
 package com.github.mbuzdalov.tree4network;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 public final class GraphBuilder {
-    private record EdgeEnd(int destination, int weight, EdgeEnd next) {}
+    private static final int DEFAULT_CAPACITY = 16;
 
-    private final List<EdgeEnd> lastEnds = new ArrayList<>();
+    // The edges in the order they were added, the arrays grow as needed
+    private int[] sources, destinations, weights;
+    private int nEdges;
+    private int nVertices;
+    private boolean mergeParallelEdges;
+
+    public GraphBuilder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates the builder that can hold the given number of edges without reallocating its storage.
+     *
+     * @param expectedEdges the expected number of edges.
+     */
+    public GraphBuilder(int expectedEdges) {
+        if (expectedEdges < 0) {
+            throw new IllegalArgumentException("Expected number of edges is negative");
+        }
+        int capacity = Math.max(expectedEdges, 1);
+        sources = new int[capacity];
+        destinations = new int[capacity];
+        weights = new int[capacity];
+    }
 
     public GraphBuilder addEdge(int v1, int v2, int weight) {
         if (v1 == v2) {
@@ -17,79 +39,110 @@ public final class GraphBuilder {
         }
         int vMax = Math.max(v1, v2);
         setNumberOfVertices(vMax + 1);
-        lastEnds.set(v1, new EdgeEnd(v2, weight, lastEnds.get(v1)));
-        lastEnds.set(v2, new EdgeEnd(v1, weight, lastEnds.get(v2)));
+        if (nEdges == sources.length) {
+            int newCapacity = Math.max(nEdges + 1, nEdges + (nEdges >>> 1));
+            sources = Arrays.copyOf(sources, newCapacity);
+            destinations = Arrays.copyOf(destinations, newCapacity);
+            weights = Arrays.copyOf(weights, newCapacity);
+        }
+        sources[nEdges] = v1;
+        destinations[nEdges] = v2;
+        weights[nEdges] = weight;
+        ++nEdges;
         return this;
     }
 
     public GraphBuilder setNumberOfVertices(int nVertices) {
-        while (lastEnds.size() < nVertices) {
-            lastEnds.add(null);
-        }
+        this.nVertices = Math.max(this.nVertices, nVertices);
         return this;
     }
 
-    private static class ArrayGraph extends Graph {
-        private final int[][] data;
-        private final int nEdges;
-        ArrayGraph(int[][] data) {
-            this.data = data;
-            int nEdges = 0;
-            for (int[] row : data) {
-                nEdges += row.length >>> 1;
-            }
-            this.nEdges = nEdges >>> 1;
-        }
-
-        @Override
-        public int nVertices() {
-            return data.length;
-        }
-
-        @Override
-        public int nEdges() {
-            return nEdges;
-        }
+    /**
+     * Sets whether the parallel edges, that is, the edges between the same pair of vertices,
+     * are merged into a single edge with the sum of their weights. By default, they are kept as is.
+     *
+     * @param mergeParallelEdges whether to merge the parallel edges.
+     * @return this builder.
+     */
+    public GraphBuilder setMergeParallelEdges(boolean mergeParallelEdges) {
+        this.mergeParallelEdges = mergeParallelEdges;
+        return this;
+    }
 
-        @Override
-        public int degree(int vertex) {
-            return data[vertex].length >>> 1;
+    public CSRGraph result() {
+        int n = nVertices;
+        int[] offsets = new int[n + 1];
+        // First the numbers of the lower neighbours, then the offsets where the upper neighbours begin
+        int[] upperOffsets = new int[n];
+        for (int e = 0; e < nEdges; ++e) {
+            ++offsets[sources[e] + 1];
+            ++offsets[destinations[e] + 1];
+            ++upperOffsets[Math.max(sources[e], destinations[e])];
         }
-
-        @Override
-        public int getDestination(int source, int index) {
-            return data[source][index << 1];
+        for (int v = 0; v < n; ++v) {
+            offsets[v + 1] += offsets[v];
+            upperOffsets[v] += offsets[v];
         }
 
-        @Override
-        public int getWeight(int source, int index) {
-            return data[source][1 + (index << 1)];
+        // Each part of a row is filled from its end, so that the edges come in the reverse order of their addition
+        int[] lowerEnds = upperOffsets.clone();
+        int[] upperEnds = Arrays.copyOfRange(offsets, 1, n + 1);
+        int[] resultDestinations = new int[2 * nEdges];
+        int[] resultWeights = new int[2 * nEdges];
+        for (int e = 0; e < nEdges; ++e) {
+            int v1 = Math.min(sources[e], destinations[e]);
+            int v2 = Math.max(sources[e], destinations[e]);
+            int w = weights[e];
+            int i1 = --upperEnds[v1];
+            resultDestinations[i1] = v2;
+            resultWeights[i1] = w;
+            int i2 = --lowerEnds[v2];
+            resultDestinations[i2] = v1;
+            resultWeights[i2] = w;
         }
+        return mergeParallelEdges
+                ? mergeParallel(offsets, upperOffsets, resultDestinations, resultWeights)
+                : new CSRGraph(offsets, upperOffsets, resultDestinations, resultWeights);
     }
 
-    private int[] extractArray(int vertex) {
-        int adjacentVertices = 0;
-        EdgeEnd e = lastEnds.get(vertex);
-        while (e != null) {
-            ++adjacentVertices;
-            e = e.next;
-        }
-        int[] result = new int[2 * adjacentVertices];
-        e = lastEnds.get(vertex);
-        int index = -1;
-        while (e != null) {
-            result[++index] = e.destination;
-            result[++index] = e.weight;
-            e = e.next;
-        }
-        return result;
-    }
-
-    public Graph result() {
-        int[][] data = new int[lastEnds.size()][];
-        for (int i = 0; i < data.length; ++i) {
-            data[i] = extractArray(i);
+    // Keeps the first edge end to each neighbour in each row, adding the weights of the others to it.
+    // The rows only shrink, so this is done in place.
+    private static CSRGraph mergeParallel(int[] offsets, int[] upperOffsets, int[] destinations, int[] weights) {
+        int n = upperOffsets.length;
+        int[] lastRow = new int[n];
+        int[] positions = new int[n];
+        Arrays.fill(lastRow, -1);
+        int size = 0;
+        for (int v = 0; v < n; ++v) {
+            int rowBegin = offsets[v];
+            int upperBegin = upperOffsets[v];
+            int rowEnd = offsets[v + 1];
+            offsets[v] = size;
+            for (int e = rowBegin; e < rowEnd; ++e) {
+                if (e == upperBegin) {
+                    upperOffsets[v] = size;
+                }
+                int u = destinations[e];
+                if (lastRow[u] == v) {
+                    long sum = (long) weights[positions[u]] + weights[e];
+                    if (sum != (int) sum) {
+                        throw new IllegalArgumentException("The merged weight between " + v + " and " + u
+                                + " does not fit into int");
+                    }
+                    weights[positions[u]] = (int) sum;
+                } else {
+                    lastRow[u] = v;
+                    positions[u] = size;
+                    destinations[size] = u;
+                    weights[size] = weights[e];
+                    ++size;
+                }
+            }
+            if (upperBegin == rowEnd) {
+                upperOffsets[v] = size;
+            }
         }
-        return new ArrayGraph(data);
+        offsets[n] = size;
+        return new CSRGraph(offsets, upperOffsets, Arrays.copyOf(destinations, size), Arrays.copyOf(weights, size));
     }
 }
@@ -17,8 +17,9 @@ public final class BestBSTOverAllPermutations implements BestTreeAlgorithm {
         if (maxDegree != 3) {
             throw new IllegalArgumentException("This algorithm is not supported for maxDegree = " + maxDegree);
         }
+        Graph graph = BestBSTOverPermutation.wrapIfDense(weights);
         return new ResultSupplier() {
-            private final int n = weights.nVertices();
+            private final int n = graph.nVertices();
             private final BestBSTOverPermutation solver = new BestBSTOverPermutation(n);
             private final int[] vertexOrder = new int[n];
             private boolean dead = false;
@@ -58,7 +59,7 @@ public final class BestBSTOverAllPermutations implements BestTreeAlgorithm {
                     }
                 }
                 ++iteration;
-                Result currResult = solver.construct(weights, vertexOrder, minChanged, timer);
+                Result currResult = solver.construct(graph, vertexOrder, minChanged, timer);
                 dead = currResult == null;
                 return currResult;
             }
@@ -1,6 +1,7 @@
 package com.github.mbuzdalov.tree4network.algo;
 
 import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.DenseGraph;
 import com.github.mbuzdalov.tree4network.Graph;
 import com.github.mbuzdalov.tree4network.util.Combinatorics;
 import com.github.mbuzdalov.tree4network.util.Timer;
@@ -24,13 +25,35 @@ public final class BestBSTOverPermutation {
         }
     }
 
+    /**
+     * Returns the given graph wrapped into a {@link DenseGraph} if it is dense enough, so that the weight matrix
+     * for each permutation is gathered from it directly, or the given graph itself otherwise.
+     * The users of this class call it once per graph, as no other algorithm benefits from the dense graphs.
+     *
+     * @param weights the graph to wrap.
+     * @return the graph to pass to {@link #construct(Graph, int[], int, Timer)}.
+     */
+    public static Graph wrapIfDense(Graph weights) {
+        return weights instanceof DenseGraph || !DenseGraph.isDenseEnough(weights) ? weights : new DenseGraph(weights);
+    }
+
     private void fillWeightMatrix(Graph weights, int[] order) {
         int n = weights.nVertices();
 
+        // Construct the weight matrix, directly from the dense one if possible
+        if (weights instanceof DenseGraph dense) {
+            for (int pi = 0; pi < n; ++pi) {
+                int[] row = weightMatrix[pi];
+                int i = order[pi];
+                for (int pt = 0; pt < n; ++pt) {
+                    row[pt] = dense.weight(i, order[pt]);
+                }
+            }
+            return;
+        }
+
         int[] inverse = new int[n];
         Combinatorics.fillInverseOrder(order, inverse);
-
-        // Construct the weight matrix
         for (int i = 0; i < n; ++i) {
             int pi = inverse[i];
             Arrays.fill(weightMatrix[pi], 0, n, 0);
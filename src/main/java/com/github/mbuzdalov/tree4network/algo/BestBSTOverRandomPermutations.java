@@ -17,8 +17,9 @@ public final class BestBSTOverRandomPermutations implements BestTreeAlgorithm {
         if (maxDegree != 3) {
             throw new IllegalArgumentException("This algorithm is not supported for maxDegree = " + maxDegree);
         }
+        Graph graph = BestBSTOverPermutation.wrapIfDense(weights);
         return new ResultSupplier() {
-            private final int n = weights.nVertices();
+            private final int n = graph.nVertices();
             private final BestBSTOverPermutation solver = new BestBSTOverPermutation(n);
             private final int[] vertexOrder = new int[n];
 
@@ -28,7 +29,7 @@ public final class BestBSTOverRandomPermutations implements BestTreeAlgorithm {
                     return null;
                 }
                 Combinatorics.fillRandomPermutation(vertexOrder, random);
-                return solver.construct(weights, vertexOrder, 0, timer);
+                return solver.construct(graph, vertexOrder, 0, timer);
             }
         };
     }
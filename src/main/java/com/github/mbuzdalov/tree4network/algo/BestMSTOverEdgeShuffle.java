@@ -3,7 +3,6 @@ package com.github.mbuzdalov.tree4network.algo;
 import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
 import com.github.mbuzdalov.tree4network.Graph;
 import com.github.mbuzdalov.tree4network.cost.CostComputationAlgorithm;
-import com.github.mbuzdalov.tree4network.cost.DefaultCostComputationAlgorithm;
 import com.github.mbuzdalov.tree4network.util.DisjointSet;
 import com.github.mbuzdalov.tree4network.util.Graphs;
 import com.github.mbuzdalov.tree4network.util.Timer;
@@ -26,7 +25,8 @@ public final class BestMSTOverEdgeShuffle implements BestTreeAlgorithm {
             private final DisjointSet ds = new DisjointSet(n);
             private final int[] degree = new int[n];
             private final WeighedEdge[] edges = new WeighedEdge[e];
-            private final CostComputationAlgorithm costAlgo = new DefaultCostComputationAlgorithm(n);
+            private final CostComputationAlgorithm costAlgo = CostComputationAlgorithm.instrument(
+                    CostComputationAlgorithm.newDefault(n), "initializer " + getName());
 
             {
                 for (int i = 0, ei = 0; i < n; ++i) {
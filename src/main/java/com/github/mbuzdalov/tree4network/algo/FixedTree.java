@@ -0,0 +1,36 @@
+package com.github.mbuzdalov.tree4network.algo;
+
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.util.Timer;
+
+import java.util.random.RandomGenerator;
+
+// Returns the given tree once and then reports that it is done, so the local search is not restarted
+final class FixedTree implements BestTreeAlgorithm {
+    private final Result seed;
+
+    FixedTree(Result seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public String getName() {
+        return "Fixed tree";
+    }
+
+    @Override
+    public ResultSupplier construct(Graph weights, int maxDegree) {
+        return new ResultSupplier() {
+            private boolean returned = false;
+
+            @Override
+            public Result next(Timer timer, RandomGenerator random) {
+                if (returned) {
+                    return null;
+                }
+                returned = true;
+                return seed;
+            }
+        };
+    }
+}
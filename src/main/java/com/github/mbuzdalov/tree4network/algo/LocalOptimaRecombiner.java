@@ -2,7 +2,6 @@ package com.github.mbuzdalov.tree4network.algo;
 
 import com.github.mbuzdalov.tree4network.Graph;
 import com.github.mbuzdalov.tree4network.cost.CostComputationAlgorithm;
-import com.github.mbuzdalov.tree4network.cost.DefaultCostComputationAlgorithm;
 import com.github.mbuzdalov.tree4network.mut.Mutation;
 import com.github.mbuzdalov.tree4network.util.Timer;
 import com.github.mbuzdalov.tree4network.xover.Crossover;
@@ -29,7 +28,11 @@ public final class LocalOptimaRecombiner<C1, C2> implements BestTreeAlgorithm {
     @Override
     public ResultSupplier construct(Graph weights, int maxDegree) {
         return new ResultSupplier() {
-            private final CostComputationAlgorithm costAlgo = new DefaultCostComputationAlgorithm(weights.nVertices());
+            private final CostComputationAlgorithm costAlgo = CostComputationAlgorithm.newDefault(weights.nVertices());
+            private final CostComputationAlgorithm mutationCostAlgo = CostComputationAlgorithm.instrument(
+                    costAlgo, "mutation " + mutation.getName());
+            private final CostComputationAlgorithm crossoverCostAlgo = CostComputationAlgorithm.instrument(
+                    costAlgo, "crossover " + crossover.getName());
             private final ResultSupplier initialSolutions = initializer.construct(weights, maxDegree);
             private Result bestKnownResult = null;
             private Result lastResult = null;
@@ -46,7 +49,7 @@ public final class LocalOptimaRecombiner<C1, C2> implements BestTreeAlgorithm {
                     if (timer.shouldInterrupt()) {
                         return null;
                     }
-                    Result nextResult = mutation.mutate(lastResult, mutationCtx, costAlgo, random, timer);
+                    Result nextResult = mutation.mutate(lastResult, mutationCtx, mutationCostAlgo, random, timer);
                     if (nextResult == null) {
                         // try to process the last result with crossover
                         if (bestKnownResult == null) {
@@ -56,7 +59,7 @@ public final class LocalOptimaRecombiner<C1, C2> implements BestTreeAlgorithm {
                             return next(timer, random);
                         } else {
                             // run the crossover between the best result and the last result
-                            Result crossoverResult = crossover.crossover(bestKnownResult, lastResult, crossoverCtx, costAlgo, random, timer);
+                            Result crossoverResult = crossover.crossover(bestKnownResult, lastResult, crossoverCtx, crossoverCostAlgo, random, timer);
                             // update the best result with the last one after we are done with the crossover
                             if (bestKnownResult.cost() > lastResult.cost()) {
                                 bestKnownResult = lastResult;
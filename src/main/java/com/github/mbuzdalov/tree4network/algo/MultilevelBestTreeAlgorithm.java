@@ -0,0 +1,418 @@
+package com.github.mbuzdalov.tree4network.algo;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.GraphBuilder;
+import com.github.mbuzdalov.tree4network.cost.CostComputationAlgorithm;
+import com.github.mbuzdalov.tree4network.mut.Mutation;
+import com.github.mbuzdalov.tree4network.util.Combinatorics;
+import com.github.mbuzdalov.tree4network.util.DisjointSet;
+import com.github.mbuzdalov.tree4network.util.Timer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * <p>Solves large instances by coarsening the demand graph, solving the smallest graph with another algorithm,
+ * and projecting the tree back to the original graph level by level, refining it with local search at every level.</p>
+ * <p>Every coarsening step merges the vertices in pairs by the heavy-edge matching, so the number of vertices
+ * roughly halves, and the demands between the merged vertices are summed. The coarsening stops when the graph
+ * has at most the given number of vertices. A tree over merged vertices is projected like a maximum spanning tree
+ * with bounded degrees: the demands inside the pairs and between the pairs connected in the coarse tree are added
+ * from the heaviest one while they do not make cycles, then the vertices of these pairs are connected directly.
+ * If the degrees do not allow that, the other demands are tried as well, and the components which still remain
+ * are attached to each other in the breadth-first order through their vertices below the degree limit.
+ * The latter takes linear time, unlike the random connectors of {@link BestMSTOverEdgeShuffle},
+ * which may need about {@code n^2} attempts when few vertices are below the limit.</p>
+ * <p>The time spent at the coarsest level and at each intermediate level is limited, while the local search
+ * on the original graph runs until it reaches a local optimum. After that, the whole cycle is repeated
+ * with a different random matching, until the time runs out.</p>
+ *
+ * @param <C> the type of the mutation context.
+ */
+public final class MultilevelBestTreeAlgorithm<C> implements BestTreeAlgorithm {
+    private final BestTreeAlgorithm solver;
+    private final Mutation<C> mutation;
+    private final int coarsestSize;
+    private final long levelTimeLimitMillis;
+
+    public MultilevelBestTreeAlgorithm(BestTreeAlgorithm solver, Mutation<C> mutation,
+                                       int coarsestSize, long levelTimeLimitMillis) {
+        if (coarsestSize < 2) {
+            throw new IllegalArgumentException("Coarsest size shall be at least 2, found " + coarsestSize);
+        }
+        if (levelTimeLimitMillis <= 0) {
+            throw new IllegalArgumentException("Level time limit shall be positive, found " + levelTimeLimitMillis);
+        }
+        this.solver = solver;
+        this.mutation = mutation;
+        this.coarsestSize = coarsestSize;
+        this.levelTimeLimitMillis = levelTimeLimitMillis;
+    }
+
+    @Override
+    public String getName() {
+        return "Multilevel (coarsest = " + solver.getName() + " on " + coarsestSize
+                + " vertices, mutation = " + mutation.getName() + ")";
+    }
+
+    @Override
+    public ResultSupplier construct(Graph weights, int maxDegree) {
+        return new ResultSupplier() {
+            private final CostComputationAlgorithm costAlgo = CostComputationAlgorithm.instrument(
+                    CostComputationAlgorithm.newDefault(weights.nVertices()), "projection " + getName());
+            private ResultSupplier finest = null;
+
+            @Override
+            public Result next(Timer timer, RandomGenerator random) {
+                while (true) {
+                    if (finest == null) {
+                        if (timer.shouldInterrupt()) {
+                            return null;
+                        }
+                        Result seed = cycle(weights, maxDegree, costAlgo, timer, random);
+                        finest = new SimpleLocalSearch<>(new FixedTree(seed), mutation).construct(weights, maxDegree);
+                    }
+                    Result result = finest.next(timer, random);
+                    if (result != null) {
+                        return result;
+                    }
+                    // either the time is out, or the local optimum is found and the cycle shall be restarted
+                    finest = null;
+                }
+            }
+        };
+    }
+
+    // Coarsens the graph, solves the coarsest one, then projects and refines the tree on all levels
+    // except the original graph, and returns the tree projected to the original graph.
+    private Result cycle(Graph weights, int maxDegree, CostComputationAlgorithm costAlgo,
+                         Timer timer, RandomGenerator random) {
+        List<Graph> graphs = new ArrayList<>();
+        List<int[]> maps = new ArrayList<>();
+        graphs.add(weights);
+        Graph curr = weights;
+        while (curr.nVertices() > coarsestSize) {
+            int n = curr.nVertices();
+            int[] map = new int[n];
+            int nCoarse = heavyEdgeMatching(curr, map, random);
+            if (n - nCoarse < n / 16) {
+                // the graph does not shrink enough to justify another level
+                break;
+            }
+            curr = coarsen(curr, map, nCoarse);
+            graphs.add(curr);
+            maps.add(map);
+        }
+
+        ResultSupplier coarsest = solver.construct(curr, maxDegree);
+        // The first tree is always constructed, otherwise there would be nothing to project
+        Result best = coarsest.next(Timer.dummyTimer(), random);
+        Timer coarsestTimer = Timer.newNestedTimer(timer, levelTimeLimitMillis);
+        Result next;
+        while ((next = coarsest.next(coarsestTimer, random)) != null) {
+            if (best.cost() > next.cost()) {
+                best = next;
+            }
+        }
+
+        BoundedSimpleGraph tree = best.tree();
+        for (int level = maps.size(); --level >= 0; ) {
+            Graph levelGraph = graphs.get(level);
+            tree = project(tree, levelGraph, maps.get(level), maxDegree);
+            if (level == 0) {
+                return new Result(costAlgo.compute(levelGraph, tree), tree);
+            }
+            CostComputationAlgorithm levelCostAlgo = CostComputationAlgorithm.instrument(
+                    CostComputationAlgorithm.newDefault(levelGraph.nVertices()), "projection " + getName());
+            Result seed = new Result(levelCostAlgo.compute(levelGraph, tree), tree);
+            tree = new SimpleLocalSearch<>(new FixedTree(seed), mutation)
+                    .solve(levelGraph, maxDegree, Timer.newNestedTimer(timer, levelTimeLimitMillis), random, (t, c) -> {})
+                    .result().tree();
+        }
+        // no coarsening happened, the coarsest graph is the original one
+        return best;
+    }
+
+    /**
+     * <p>Merges the vertices of the given graph in pairs, and fills the given array with the indices
+     * of the merged vertices. The merged vertices are numbered in the order of their smallest original vertices.</p>
+     * <p>The vertices are visited in a random order, and each unmatched vertex is matched with its unmatched
+     * neighbour connected by the heaviest demand, if this demand is the heaviest one for any of the two vertices.
+     * The vertices which remain unmatched, such as the leaves of a star,
+     * are then matched in pairs if they have the same heaviest neighbour, and the isolated vertices are matched
+     * with each other.</p>
+     *
+     * @param weights the graph to coarsen.
+     * @param map the array to be filled with the indices of the merged vertices.
+     * @param random the random number generator to use.
+     * @return the number of the merged vertices.
+     */
+    public static int heavyEdgeMatching(Graph weights, int[] map, RandomGenerator random) {
+        int n = weights.nVertices();
+        if (n == 0) {
+            return 0;
+        }
+        int[] order = new int[n];
+        Combinatorics.fillRandomPermutation(order, random);
+        int[] partner = new int[n];
+        Arrays.fill(partner, -1);
+        int[] heaviestWeight = new int[n];
+        for (int v = 0; v < n; ++v) {
+            int e = heaviestEdge(weights, v, partner, false);
+            heaviestWeight[v] = e == -1 ? -1 : weights.weightAt(e);
+        }
+        for (int v : order) {
+            if (partner[v] == -1) {
+                int e = heaviestEdge(weights, v, partner, true);
+                if (e != -1) {
+                    int best = weights.destinationAt(e);
+                    int w = weights.weightAt(e);
+                    // A demand which is not the heaviest for any of its vertices tends to connect the vertices
+                    // which are far apart in good trees, so they are not merged along it
+                    if (w == heaviestWeight[v] || w == heaviestWeight[best]) {
+                        partner[v] = best;
+                        partner[best] = v;
+                    }
+                }
+            }
+        }
+
+        // The unmatched vertices waiting for a partner, indexed by their heaviest neighbour plus one
+        int[] waiting = new int[n + 1];
+        Arrays.fill(waiting, -1);
+        for (int v : order) {
+            if (partner[v] == -1) {
+                int e = heaviestEdge(weights, v, partner, false);
+                int slot = e == -1 ? 0 : weights.destinationAt(e) + 1;
+                int other = waiting[slot];
+                if (other == -1) {
+                    waiting[slot] = v;
+                } else {
+                    partner[v] = other;
+                    partner[other] = v;
+                    waiting[slot] = -1;
+                }
+            }
+        }
+
+        int nCoarse = 0;
+        for (int v = 0; v < n; ++v) {
+            int p = partner[v];
+            map[v] = p == -1 || p > v ? nCoarse++ : map[p];
+        }
+        return nCoarse;
+    }
+
+    /**
+     * Creates the graph over the merged vertices, where the weight of a demand between two merged vertices
+     * is the sum of the weights of the demands between their original vertices, saturated to fit into int.
+     * The demands between the vertices merged together are dropped.
+     *
+     * @param weights the graph to coarsen.
+     * @param map the indices of the merged vertices.
+     * @param nCoarse the number of the merged vertices.
+     * @return the coarsened graph.
+     */
+    public static Graph coarsen(Graph weights, int[] map, int nCoarse) {
+        int[] members = members(map, nCoarse);
+        long[] rowWeights = new long[nCoarse];
+        int[] lastRow = new int[nCoarse];
+        int[] neighbours = new int[nCoarse];
+        Arrays.fill(lastRow, -1);
+        GraphBuilder builder = new GraphBuilder(weights.nEdges()).setNumberOfVertices(nCoarse);
+        for (int c = 0; c < nCoarse; ++c) {
+            int nNeighbours = 0;
+            for (int m = 2 * c; m < 2 * c + 2; ++m) {
+                int v = members[m];
+                if (v == -1) {
+                    continue;
+                }
+                for (int e = weights.edgesBegin(v), end = weights.edgesEnd(v); e < end; ++e) {
+                    int d = map[weights.destinationAt(e)];
+                    if (d > c) {
+                        if (lastRow[d] != c) {
+                            lastRow[d] = c;
+                            rowWeights[d] = 0;
+                            neighbours[nNeighbours++] = d;
+                        }
+                        rowWeights[d] += weights.weightAt(e);
+                    }
+                }
+            }
+            for (int i = 0; i < nNeighbours; ++i) {
+                int d = neighbours[i];
+                builder.addEdge(c, d, (int) Math.min(rowWeights[d], Integer.MAX_VALUE));
+            }
+        }
+        return builder.result();
+    }
+
+    // Returns the heaviest demand of the given vertex, optionally only among the demands to the unmatched vertices
+    private static int heaviestEdge(Graph weights, int v, int[] partner, boolean unmatchedOnly) {
+        int best = -1;
+        int bestWeight = -1;
+        for (int e = weights.edgesBegin(v), end = weights.edgesEnd(v); e < end; ++e) {
+            int w = weights.weightAt(e);
+            if (w > bestWeight && (!unmatchedOnly || partner[weights.destinationAt(e)] == -1)) {
+                best = e;
+                bestWeight = w;
+            }
+        }
+        return best;
+    }
+
+    // The original vertices of each merged vertex c are at indices 2 * c and 2 * c + 1, the latter may be -1
+    private static int[] members(int[] map, int nCoarse) {
+        int[] members = new int[2 * nCoarse];
+        Arrays.fill(members, -1);
+        for (int v = 0; v < map.length; ++v) {
+            int c = map[v];
+            members[members[2 * c] == -1 ? 2 * c : 2 * c + 1] = v;
+        }
+        return members;
+    }
+
+    private static BoundedSimpleGraph project(BoundedSimpleGraph coarseTree, Graph weights, int[] map, int maxDegree) {
+        int n = map.length;
+        int nCoarse = coarseTree.nVertices();
+        int[] members = members(map, nCoarse);
+        BoundedSimpleGraph tree = new BoundedSimpleGraph(n, maxDegree);
+        DisjointSet ds = new DisjointSet(n);
+
+        // First, the heaviest demands inside the merged vertices and along the coarse tree edges, packed into longs.
+        // They are stored from the beginning of the array, and the other demands are stored from its end.
+        long[] edges = new long[weights.nEdges()];
+        int nEdges = 0, otherEdgesBegin = edges.length;
+        int[] sources = new int[n == 0 ? 0 : weights.edgesEnd(n - 1)];
+        for (int v = 0; v < n; ++v) {
+            for (int e = weights.edgesBegin(v), end = weights.edgesEnd(v); e < end; ++e) {
+                sources[e] = v;
+            }
+            for (int e = weights.upperEdgesBegin(v), end = weights.edgesEnd(v); e < end; ++e) {
+                int c = map[v], d = map[weights.destinationAt(e)];
+                long packed = ((long) (weights.weightAt(e)) << 32) | e;
+                if (c == d || coarseTree.hasEdge(c, d)) {
+                    edges[nEdges++] = packed;
+                } else {
+                    edges[--otherEdgesBegin] = packed;
+                }
+            }
+        }
+        Arrays.sort(edges, 0, nEdges);
+        for (int i = nEdges; --i >= 0; ) {
+            int e = (int) edges[i];
+            tryAddEdge(tree, ds, sources[e], weights.destinationAt(e), maxDegree);
+        }
+
+        // Then the coarse tree edges and the merged vertices which are still not connected
+        for (int c = 0; c < nCoarse; ++c) {
+            tryAddEdge(tree, ds, members[2 * c], members[2 * c + 1], maxDegree);
+            int degree = coarseTree.degree(c);
+            for (int i = 0; i < degree; ++i) {
+                int d = coarseTree.getDestination(c, i);
+                for (int ma = 2 * c; ma < 2 * c + 2; ++ma) {
+                    for (int mb = 2 * d; mb < 2 * d + 2; ++mb) {
+                        tryAddEdge(tree, ds, members[ma], members[mb], maxDegree);
+                    }
+                }
+            }
+        }
+
+        // If the degrees did not allow this, try the other demands from the heaviest one, as they are likely
+        // to connect the components which shall be close to each other
+        if (tree.nEdges() + 1 < n) {
+            Arrays.sort(edges, otherEdgesBegin, edges.length);
+            for (int i = edges.length; --i >= otherEdgesBegin && tree.nEdges() + 1 < n; ) {
+                int e = (int) edges[i];
+                tryAddEdge(tree, ds, sources[e], weights.destinationAt(e), maxDegree);
+            }
+        }
+
+        // If this is still not enough, attach the remaining components in the order in which the preorder
+        // of the coarse tree visits them, each to the earliest vertex below the degree limit in the components
+        // attached before, like in a breadth-first search, so the components adjacent in the coarse tree stay close
+        // and the depth grows logarithmically. Every component has at least one vertex below the limit
+        // left after being attached, so this always succeeds, and unlike the random connectors
+        // of BestMSTOverEdgeShuffle, which may need about n^2 attempts when few vertices are below the limit,
+        // it takes linear time.
+        if (tree.nEdges() + 1 < n) {
+            int[] coarseOrder = preorder(coarseTree);
+            int[] ranks = new int[n];
+            Arrays.fill(ranks, -1);
+            int[] freeBegin = new int[n + 1];
+            int nComponents = 0;
+            for (int c : coarseOrder) {
+                for (int m = 2 * c; m < 2 * c + 2; ++m) {
+                    int v = members[m];
+                    if (v != -1) {
+                        int root = ds.get(v);
+                        if (ranks[root] == -1) {
+                            ranks[root] = nComponents++;
+                        }
+                        if (tree.degree(v) < maxDegree) {
+                            ++freeBegin[ranks[root] + 1];
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < nComponents; ++i) {
+                freeBegin[i + 1] += freeBegin[i];
+            }
+            // The vertices below the limit grouped by the components, which also serves as the queue of attachment
+            int[] free = new int[freeBegin[nComponents]];
+            int[] freeEnd = Arrays.copyOf(freeBegin, nComponents);
+            for (int c : coarseOrder) {
+                for (int m = 2 * c; m < 2 * c + 2; ++m) {
+                    int v = members[m];
+                    if (v != -1 && tree.degree(v) < maxDegree) {
+                        free[freeEnd[ranks[ds.get(v)]]++] = v;
+                    }
+                }
+            }
+            int head = 0;
+            for (int i = 1; i < nComponents; ++i) {
+                while (tree.degree(free[head]) == maxDegree) {
+                    ++head;
+                }
+                tree.addEdge(free[head], free[freeBegin[i]]);
+            }
+        }
+        return tree;
+    }
+
+    private static int[] preorder(BoundedSimpleGraph tree) {
+        int n = tree.nVertices();
+        int[] result = new int[n];
+        int[] parents = new int[n];
+        int size = 0;
+        if (n > 0) {
+            // The vertices are taken from the end, so the stack never holds more than n vertices
+            int[] stack = new int[n];
+            int stackSize = 1;
+            parents[0] = -1;
+            while (stackSize > 0) {
+                int curr = stack[--stackSize];
+                result[size++] = curr;
+                for (int i = tree.degree(curr); --i >= 0; ) {
+                    int next = tree.getDestination(curr, i);
+                    if (next != parents[curr]) {
+                        parents[next] = curr;
+                        stack[stackSize++] = next;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void tryAddEdge(BoundedSimpleGraph tree, DisjointSet ds, int a, int b, int maxDegree) {
+        if (a != -1 && b != -1 && tree.degree(a) < maxDegree && tree.degree(b) < maxDegree
+                && ds.get(a) != ds.get(b)) {
+            ds.unite(a, b);
+            tree.addEdge(a, b);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.mbuzdalov.tree4network.algo;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.GraphBuilder;
+import com.github.mbuzdalov.tree4network.util.Timer;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * <p>Runs another algorithm on the demand graph with the vertices renumbered, so that the vertices
+ * connected by heavy demands get close numbers, and maps the resulting trees back to the original numbers.</p>
+ * <p>The numbering is the breadth-first search order, which starts from the vertex with the largest total weight
+ * of its demands and visits the neighbours of each vertex in the order of decreasing demand weight.
+ * Since the trees built by the algorithms tend to connect the vertices with heavy demands, this improves
+ * the locality of the accesses to the per-vertex arrays of both the algorithms and the cost computations.</p>
+ */
+public final class RelabeledBestTreeAlgorithm implements BestTreeAlgorithm {
+    private final BestTreeAlgorithm algorithm;
+
+    public RelabeledBestTreeAlgorithm(BestTreeAlgorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    @Override
+    public String getName() {
+        return algorithm.getName() + " on relabeled vertices";
+    }
+
+    @Override
+    public ResultSupplier construct(Graph weights, int maxDegree) {
+        int[] newIndices = heavyEdgeOrder(weights);
+        ResultSupplier supplier = algorithm.construct(relabel(weights, newIndices), maxDegree);
+        return (timer, random) -> mapBack(supplier.next(timer, random), newIndices);
+    }
+
+    @Override
+    public ExtendedResult solve(Graph weights, int maxDegree,
+                                Timer timer, RandomGenerator random, BiConsumer<Long, Long> logger) {
+        // The costs do not depend on the numbering, so only the final tree needs to be mapped back
+        int[] newIndices = heavyEdgeOrder(weights);
+        ExtendedResult result = algorithm.solve(relabel(weights, newIndices), maxDegree, timer, random, logger);
+        return new ExtendedResult(mapBack(result.result(), newIndices), result.nQueries());
+    }
+
+    /**
+     * Computes the new index of every vertex, see the class description for the order.
+     *
+     * @param weights the demand graph.
+     * @return the array of the new indices of the vertices.
+     */
+    public static int[] heavyEdgeOrder(Graph weights) {
+        int n = weights.nVertices();
+        long[] vertexWeights = new long[n];
+        Integer[] starts = new Integer[n];
+        for (int v = 0; v < n; ++v) {
+            starts[v] = v;
+            for (int e = weights.edgesBegin(v), end = weights.edgesEnd(v); e < end; ++e) {
+                vertexWeights[v] += weights.weightAt(e);
+            }
+        }
+        Arrays.sort(starts, (a, b) -> Long.compare(vertexWeights[b], vertexWeights[a]));
+
+        int[] newIndices = new int[n];
+        Arrays.fill(newIndices, -1);
+        int[] queue = new int[n];
+        long[] row = new long[16];
+        int head = 0;
+        for (int start : starts) {
+            if (newIndices[start] != -1) {
+                continue;
+            }
+            int tail = head;
+            newIndices[start] = head;
+            queue[head++] = start;
+            while (tail < head) {
+                int curr = queue[tail++];
+                int begin = weights.edgesBegin(curr);
+                int degree = weights.edgesEnd(curr) - begin;
+                if (row.length < degree) {
+                    row = new long[Math.max(degree, 2 * row.length)];
+                }
+                // Sorting the neighbours by weight, then by index, packed into longs
+                for (int i = 0; i < degree; ++i) {
+                    row[i] = ((long) (weights.weightAt(begin + i)) << 32) | weights.destinationAt(begin + i);
+                }
+                Arrays.sort(row, 0, degree);
+                for (int i = degree; --i >= 0; ) {
+                    int next = (int) row[i];
+                    if (newIndices[next] == -1) {
+                        newIndices[next] = head;
+                        queue[head++] = next;
+                    }
+                }
+            }
+        }
+        return newIndices;
+    }
+
+    private static Graph relabel(Graph weights, int[] newIndices) {
+        int n = weights.nVertices();
+        GraphBuilder builder = new GraphBuilder(weights.nEdges()).setNumberOfVertices(n);
+        for (int v = 0; v < n; ++v) {
+            for (int e = weights.upperEdgesBegin(v), end = weights.edgesEnd(v); e < end; ++e) {
+                builder.addEdge(newIndices[v], newIndices[weights.destinationAt(e)], weights.weightAt(e));
+            }
+        }
+        return builder.result();
+    }
+
+    private static Result mapBack(Result result, int[] newIndices) {
+        if (result == null) {
+            return null;
+        }
+        BoundedSimpleGraph relabeled = result.tree();
+        int n = newIndices.length;
+        int[] oldIndices = new int[n];
+        for (int v = 0; v < n; ++v) {
+            oldIndices[newIndices[v]] = v;
+        }
+        BoundedSimpleGraph tree = new BoundedSimpleGraph(n, relabeled.maximumDegree());
+        for (int v = 0; v < n; ++v) {
+            int degree = relabeled.degree(v);
+            for (int i = 0; i < degree; ++i) {
+                int u = relabeled.getDestination(v, i);
+                if (v < u) {
+                    tree.addEdge(oldIndices[v], oldIndices[u]);
+                }
+            }
+        }
+        return new Result(result.cost(), tree);
+    }
+}
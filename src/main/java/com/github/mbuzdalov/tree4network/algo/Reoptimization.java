@@ -0,0 +1,44 @@
+package com.github.mbuzdalov.tree4network.algo;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.DynamicGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.cost.CostComputationAlgorithm;
+import com.github.mbuzdalov.tree4network.cost.DefaultCostComputationAlgorithm;
+import com.github.mbuzdalov.tree4network.mut.Mutation;
+import com.github.mbuzdalov.tree4network.util.Timer;
+
+import java.util.function.BiConsumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * <p>Re-optimizes a tree after the demands have changed, starting from the previously found tree
+ * instead of from scratch.</p>
+ * <p>The pending updates of the demand graph are applied, the cost of the previous tree is updated
+ * by evaluating it only on the changed demands, and the local search with the given mutation
+ * is resumed from this tree. The search stops when the time runs out or when the mutation
+ * reports that the tree is a local optimum, so small drifts are handled quickly.</p>
+ *
+ * @param <C> the type of the mutation context.
+ */
+public final class Reoptimization<C> {
+    private final Mutation<C> mutation;
+
+    public Reoptimization(Mutation<C> mutation) {
+        this.mutation = mutation;
+    }
+
+    public BestTreeAlgorithm.ExtendedResult reoptimize(DynamicGraph weights, BestTreeAlgorithm.Result previous,
+                                                       Timer timer, RandomGenerator random,
+                                                       BiConsumer<Long, Long> logger) {
+        BoundedSimpleGraph tree = previous.tree();
+        // Not the cached default, as the same tree is evaluated on a different graph
+        CostComputationAlgorithm costAlgo = CostComputationAlgorithm.instrument(
+                new DefaultCostComputationAlgorithm(weights.nVertices()), "reoptimization");
+        Graph differences = weights.applyUpdates();
+        BestTreeAlgorithm.Result seed = new BestTreeAlgorithm.Result(
+                previous.cost() + costAlgo.compute(differences, tree), tree);
+        BestTreeAlgorithm search = new SimpleLocalSearch<>(new FixedTree(seed), mutation);
+        return search.solve(weights, tree.maximumDegree(), timer, random, logger);
+    }
+}
@@ -2,7 +2,6 @@ package com.github.mbuzdalov.tree4network.algo;
 
 import com.github.mbuzdalov.tree4network.Graph;
 import com.github.mbuzdalov.tree4network.cost.CostComputationAlgorithm;
-import com.github.mbuzdalov.tree4network.cost.DefaultCostComputationAlgorithm;
 import com.github.mbuzdalov.tree4network.mut.Mutation;
 import com.github.mbuzdalov.tree4network.util.Timer;
 
@@ -25,7 +24,8 @@ public final class SimpleLocalSearch<C> implements BestTreeAlgorithm {
     @Override
     public ResultSupplier construct(Graph weights, int maxDegree) {
         return new ResultSupplier() {
-            private final CostComputationAlgorithm costAlgo = new DefaultCostComputationAlgorithm(weights.nVertices());
+            private final CostComputationAlgorithm costAlgo = CostComputationAlgorithm.instrument(
+                    CostComputationAlgorithm.newDefault(weights.nVertices()), "mutation " + mutation.getName());
             private final ResultSupplier initialSolutions = initializer.construct(weights, maxDegree);
             private Result lastResult = null;
             private final C context = mutation.createContext(weights, maxDegree);
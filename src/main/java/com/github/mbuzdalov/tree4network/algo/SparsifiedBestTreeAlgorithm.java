@@ -0,0 +1,140 @@
+package com.github.mbuzdalov.tree4network.algo;
+
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.GraphBuilder;
+import com.github.mbuzdalov.tree4network.cost.CostComputationAlgorithm;
+import com.github.mbuzdalov.tree4network.util.Timer;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * <p>Runs another algorithm on the demand graph which keeps only the heaviest demands,
+ * such that their total weight is at least the given fraction of the total weight of all demands.</p>
+ * <p>On heavy-tailed demand graphs, most of the demands carry only a tiny part of the total weight,
+ * but every demand costs the same in every cost computation, so the inner algorithm runs much faster.
+ * The trees it finds are rescored against the full demand graph from time to time, and the results
+ * are reported with the exact costs.</p>
+ */
+public final class SparsifiedBestTreeAlgorithm implements BestTreeAlgorithm {
+    // The incumbent is rescored at most this often, except for the final rescoring
+    private static final long RESCORE_INTERVAL_MILLIS = 1000;
+
+    private final BestTreeAlgorithm algorithm;
+    private final double coverage;
+
+    public SparsifiedBestTreeAlgorithm(BestTreeAlgorithm algorithm, double coverage) {
+        if (!(coverage > 0 && coverage <= 1)) {
+            throw new IllegalArgumentException("Coverage shall be in (0; 1], found " + coverage);
+        }
+        this.algorithm = algorithm;
+        this.coverage = coverage;
+    }
+
+    @Override
+    public String getName() {
+        return algorithm.getName() + " on demands covering " + coverage + " of the total weight";
+    }
+
+    /**
+     * <p>Constructs the supplier of the results of the inner algorithm with the costs on the full demand graph.</p>
+     * <p>This is not the fast path: every result is rescored against the full demand graph, so that the costs
+     * are consistent with it, which costs as much as a query of the algorithm without sparsification.
+     * It is useful only when the inner algorithm spends a lot of time per result, otherwise
+     * {@link #solve(Graph, int, Timer, RandomGenerator, BiConsumer)}, which rescores only the incumbent
+     * from time to time, shall be used.</p>
+     *
+     * @param weights the full demand graph.
+     * @param maxDegree the maximum degree of a vertex in the trees.
+     * @return the supplier of the results.
+     */
+    @Override
+    public ResultSupplier construct(Graph weights, int maxDegree) {
+        ResultSupplier supplier = algorithm.construct(sparsify(weights, coverage), maxDegree);
+        CostComputationAlgorithm costAlgo = CostComputationAlgorithm.instrument(
+                CostComputationAlgorithm.newDefault(weights.nVertices()), "rescoring " + getName());
+        return (timer, random) -> {
+            Result result = supplier.next(timer, random);
+            return result == null ? null : new Result(costAlgo.compute(weights, result.tree()), result.tree());
+        };
+    }
+
+    @Override
+    public ExtendedResult solve(Graph weights, int maxDegree,
+                                Timer timer, RandomGenerator random, BiConsumer<Long, Long> logger) {
+        ResultSupplier supplier = algorithm.construct(sparsify(weights, coverage), maxDegree);
+        CostComputationAlgorithm costAlgo = CostComputationAlgorithm.instrument(
+                CostComputationAlgorithm.newDefault(weights.nVertices()), "rescoring " + getName());
+        Result incumbent = null;
+        boolean incumbentRescored = true;
+        Result best = null;
+        // So that the first incumbent is rescored immediately
+        long lastRescoreTime = -RESCORE_INTERVAL_MILLIS;
+        long nQueries = 0;
+        while (true) {
+            Result curr = supplier.next(timer, random);
+            if (curr != null) {
+                ++nQueries;
+                if (incumbent == null || incumbent.cost() > curr.cost()) {
+                    incumbent = curr;
+                    incumbentRescored = false;
+                }
+            }
+            long time = timer.timeConsumedMillis();
+            if (!incumbentRescored && (curr == null || time - lastRescoreTime >= RESCORE_INTERVAL_MILLIS)) {
+                long fullCost = costAlgo.compute(weights, incumbent.tree());
+                System.out.println("Rescored at " + time + " ms: sparsified cost " + incumbent.cost()
+                        + ", full cost " + fullCost);
+                if (best == null || best.cost() > fullCost) {
+                    best = new Result(fullCost, incumbent.tree());
+                    logger.accept(time, fullCost);
+                }
+                incumbentRescored = true;
+                lastRescoreTime = time;
+            }
+            if (curr == null) {
+                return new ExtendedResult(best, nQueries);
+            }
+        }
+    }
+
+    /**
+     * Creates the graph with the heaviest edges of the given graph, whose total weight is at least
+     * the given fraction of the total weight of all edges. The weights of the edges remain the same.
+     *
+     * @param weights the graph to sparsify.
+     * @param coverage the fraction of the total weight to keep.
+     * @return the sparsified graph.
+     */
+    public static Graph sparsify(Graph weights, double coverage) {
+        int n = weights.nVertices();
+        // Upper edge ends are sorted by weight, packed into longs with their indices
+        long[] edges = new long[weights.nEdges()];
+        long totalWeight = 0;
+        int nEdges = 0;
+        for (int v = 0; v < n; ++v) {
+            for (int e = weights.upperEdgesBegin(v), end = weights.edgesEnd(v); e < end; ++e) {
+                int w = weights.weightAt(e);
+                edges[nEdges++] = ((long) (w) << 32) | e;
+                totalWeight += w;
+            }
+        }
+        Arrays.sort(edges, 0, nEdges);
+
+        int[] sources = new int[n == 0 ? 0 : weights.edgesEnd(n - 1)];
+        for (int v = 0; v < n; ++v) {
+            Arrays.fill(sources, weights.edgesBegin(v), weights.edgesEnd(v), v);
+        }
+        double weightToKeep = coverage * totalWeight;
+        GraphBuilder builder = new GraphBuilder().setNumberOfVertices(n);
+        long keptWeight = 0;
+        for (int i = nEdges; --i >= 0 && keptWeight < weightToKeep; ) {
+            int e = (int) edges[i];
+            int w = weights.weightAt(e);
+            builder.addEdge(sources[e], weights.destinationAt(e), w);
+            keptWeight += w;
+        }
+        return builder.result();
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.mbuzdalov.tree4network.cost;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Remembers the costs of the recently evaluated trees and computes the costs of new trees
+ * using the given algorithm.</p>
+ * <p>The trees are identified by a 128-bit fingerprint of their edge sets, which does not depend on the order
+ * in which the edges were added. At most the given number of costs are kept, the least recently used ones
+ * are evicted first. The cache is cleared whenever a different demand graph is given.</p>
+ */
+public final class CachingCostComputationAlgorithm extends CostComputationAlgorithm {
+    private record Fingerprint(long low, long high) {}
+
+    private final CostComputationAlgorithm base;
+    private final Map<Fingerprint, Long> cache;
+    private Graph cachedWeights;
+    private long hits, misses;
+
+    public CachingCostComputationAlgorithm(CostComputationAlgorithm base, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.base = base;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Fingerprint, Long> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    @Override
+    public long compute(Graph weights, BoundedSimpleGraph tree) {
+        validateWeights(weights);
+        Fingerprint key = fingerprint(tree);
+        Long cost = cache.get(key);
+        if (cost != null) {
+            ++hits;
+            return cost;
+        }
+        ++misses;
+        long result = base.compute(weights, tree);
+        cache.put(key, result);
+        return result;
+    }
+
+    @Override
+    public long compute(Graph weights, BoundedSimpleGraph tree, long upperBound) {
+        validateWeights(weights);
+        Fingerprint key = fingerprint(tree);
+        Long cost = cache.get(key);
+        if (cost != null) {
+            ++hits;
+            return cost;
+        }
+        ++misses;
+        long result = base.compute(weights, tree, upperBound);
+        // above the bound, the result may be not the exact cost
+        if (result <= upperBound) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    @Override
+    public long computeRelinkDelta(Graph weights, BoundedSimpleGraph tree,
+                                   int removedV1, int removedV2, int addedV1, int addedV2) {
+        return base.computeRelinkDelta(weights, tree, removedV1, removedV2, addedV1, addedV2);
+    }
+
+    @Override
+    public long[] computeBatch(Graph weights, BoundedSimpleGraph[] trees) {
+        validateWeights(weights);
+        long[] result = new long[trees.length];
+        Fingerprint[] keys = new Fingerprint[trees.length];
+        int[] missIndices = new int[trees.length];
+        int nMissing = 0;
+        for (int i = 0; i < trees.length; ++i) {
+            keys[i] = fingerprint(trees[i]);
+            Long cost = cache.get(keys[i]);
+            if (cost != null) {
+                ++hits;
+                result[i] = cost;
+            } else {
+                ++misses;
+                missIndices[nMissing++] = i;
+            }
+        }
+        if (nMissing > 0) {
+            BoundedSimpleGraph[] missing = new BoundedSimpleGraph[nMissing];
+            for (int i = 0; i < nMissing; ++i) {
+                missing[i] = trees[missIndices[i]];
+            }
+            long[] costs = base.computeBatch(weights, missing);
+            for (int i = 0; i < nMissing; ++i) {
+                result[missIndices[i]] = costs[i];
+                cache.put(keys[missIndices[i]], costs[i]);
+            }
+        }
+        return result;
+    }
+
+    private void validateWeights(Graph weights) {
+        if (cachedWeights != weights) {
+            cache.clear();
+            cachedWeights = weights;
+        }
+    }
+
+    private static Fingerprint fingerprint(BoundedSimpleGraph tree) {
+        // Sums of two independent hashes of every edge, which are invariant to the edge order
+        long low = tree.nVertices(), high = tree.nVertices();
+        for (int v = 0; v < tree.nVertices(); ++v) {
+            int degree = tree.degree(v);
+            for (int i = 0; i < degree; ++i) {
+                int u = tree.getDestination(v, i);
+                if (v < u) {
+                    long edge = ((long) (v) << 32) | u;
+                    low += mix(edge * 0x9E3779B97F4A7C15L);
+                    high += mix(edge * 0xC2B2AE3D27D4EB4FL + 0x165667B19E3779F9L);
+                }
+            }
+        }
+        return new Fingerprint(low, high);
+    }
+
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+}
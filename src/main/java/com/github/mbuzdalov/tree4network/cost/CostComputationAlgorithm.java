@@ -4,5 +4,91 @@ import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
 import com.github.mbuzdalov.tree4network.Graph;
 
 public abstract class CostComputationAlgorithm {
+    // The number of costs to remember, when positive, see CachingCostComputationAlgorithm
+    private static final int CACHE_SIZE = Integer.getInteger("tree4network.cost.cacheSize", 0);
+    // Whether to collect the statistics of cost computations, see InstrumentedCostComputationAlgorithm
+    private static final boolean INSTRUMENT = Boolean.getBoolean("tree4network.cost.instrument");
+
     public abstract long compute(Graph weights, BoundedSimpleGraph tree);
+
+    /**
+     * <p>Computes the cost of the given tree if it does not exceed the given bound.</p>
+     * <p>If the cost is greater than {@code upperBound}, the implementations may stop early and return
+     * any value greater than {@code upperBound}, which should then be treated only as "worse than the bound".
+     * The default implementation always computes the exact cost.</p>
+     *
+     * @param weights the demand graph.
+     * @param tree the tree to evaluate.
+     * @param upperBound the bound above which the exact cost is not needed.
+     * @return the cost of the tree if it is at most {@code upperBound}, otherwise some value greater than the bound.
+     */
+    public long compute(Graph weights, BoundedSimpleGraph tree, long upperBound) {
+        return compute(weights, tree);
+    }
+
+    /**
+     * <p>Computes how the cost of the given tree changes if the edge (removedV1, removedV2) is removed from it
+     * and the edge (addedV1, addedV2) is added instead.</p>
+     * <p>The tree itself is not modified. The default implementation evaluates both trees from scratch,
+     * subclasses may keep the per-tree state between calls to answer such queries much faster.</p>
+     *
+     * @param weights the demand graph.
+     * @param tree the tree before the move.
+     * @param removedV1 the first vertex of the edge to remove.
+     * @param removedV2 the second vertex of the edge to remove.
+     * @param addedV1 the first vertex of the edge to add.
+     * @param addedV2 the second vertex of the edge to add.
+     * @return the cost of the new tree minus the cost of the given tree.
+     */
+    public long computeRelinkDelta(Graph weights, BoundedSimpleGraph tree,
+                                   int removedV1, int removedV2, int addedV1, int addedV2) {
+        BoundedSimpleGraph newTree = new BoundedSimpleGraph(tree);
+        newTree.removeEdge(removedV1, removedV2);
+        newTree.addEdge(addedV1, addedV2);
+        return compute(weights, newTree) - compute(weights, tree);
+    }
+
+    /**
+     * <p>Computes the costs of several trees over the same demand graph.</p>
+     * <p>The default implementation evaluates the trees one by one, subclasses may instead
+     * read the demand graph only once for all the trees.</p>
+     *
+     * @param weights the demand graph.
+     * @param trees the trees to evaluate.
+     * @return the array of costs, one for each tree, in the same order.
+     */
+    public long[] computeBatch(Graph weights, BoundedSimpleGraph[] trees) {
+        long[] result = new long[trees.length];
+        for (int i = 0; i < trees.length; ++i) {
+            result[i] = compute(weights, trees[i]);
+        }
+        return result;
+    }
+
+    /**
+     * <p>Creates the cost computation algorithm to be used by the optimizers.</p>
+     * <p>This is {@link DefaultCostComputationAlgorithm}, which is wrapped in {@link CachingCostComputationAlgorithm}
+     * if the system property {@code tree4network.cost.cacheSize} is set to a positive number.</p>
+     *
+     * @param maxSize the maximum number of vertices.
+     * @return the new algorithm.
+     */
+    public static CostComputationAlgorithm newDefault(int maxSize) {
+        CostComputationAlgorithm result = new DefaultCostComputationAlgorithm(maxSize);
+        return CACHE_SIZE > 0 ? new CachingCostComputationAlgorithm(result, CACHE_SIZE) : result;
+    }
+
+    /**
+     * <p>Makes the cost computations of the given algorithm to be attributed to the given caller.</p>
+     * <p>If the system property {@code tree4network.cost.instrument} is set to {@code true}, this wraps
+     * the algorithm in {@link InstrumentedCostComputationAlgorithm}, otherwise the algorithm itself is returned,
+     * so there is no overhead at all.</p>
+     *
+     * @param algorithm the algorithm to instrument.
+     * @param caller the name of the caller, such as a mutation or a crossover.
+     * @return the algorithm to be used by the caller.
+     */
+    public static CostComputationAlgorithm instrument(CostComputationAlgorithm algorithm, String caller) {
+        return INSTRUMENT ? new InstrumentedCostComputationAlgorithm(algorithm, caller) : algorithm;
+    }
 }
@@ -0,0 +1,22 @@
+package com.github.mbuzdalov.tree4network.cost;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.mbuzdalov.tree4network.CostComputation")
+@Label("Cost Computation")
+@Category("tree4network")
+@Description("A call to a cost computation algorithm")
+final class CostComputationEvent extends Event {
+    @Label("Caller")
+    String caller;
+
+    @Label("Method")
+    String method;
+
+    @Label("Trees")
+    int trees;
+}
@@ -0,0 +1,121 @@
+package com.github.mbuzdalov.tree4network.cost;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Statistics of the cost computations requested by a single caller, such as an initializer,
+ * a mutation or a crossover, which is identified by its name.</p>
+ * <p>The latencies are collected into a histogram with power-of-two buckets, where bucket {@code i}
+ * counts the calls that took from 2<sup>i</sup> to 2<sup>i+1</sup>-1 nanoseconds.
+ * Every instance is registered as an MXBean, so the statistics can also be seen over JMX.</p>
+ */
+public final class CostStatistics implements CostStatisticsMXBean {
+    private static final Map<String, CostStatistics> registry = new ConcurrentHashMap<>();
+
+    private final String caller;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder trees = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray(64);
+
+    private CostStatistics(String caller) {
+        this.caller = caller;
+    }
+
+    /**
+     * Returns the statistics for the given caller, creating and registering them if necessary.
+     *
+     * @param caller the name of the caller.
+     * @return the statistics for the caller.
+     */
+    public static CostStatistics forCaller(String caller) {
+        return registry.computeIfAbsent(caller, CostStatistics::register);
+    }
+
+    /**
+     * Returns the statistics for all the callers seen so far.
+     *
+     * @return the list of statistics.
+     */
+    public static List<CostStatistics> all() {
+        return new ArrayList<>(registry.values());
+    }
+
+    private static CostStatistics register(String caller) {
+        CostStatistics result = new CostStatistics(caller);
+        try {
+            ObjectName name = new ObjectName("com.github.mbuzdalov.tree4network:type=CostStatistics,caller="
+                    + ObjectName.quote(caller));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(result, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register statistics for '" + caller + "'", e);
+        }
+        return result;
+    }
+
+    void record(int nTrees, long nanos) {
+        calls.increment();
+        trees.add(nTrees);
+        totalNanos.add(nanos);
+        latencyHistogram.incrementAndGet(63 - Long.numberOfLeadingZeros(nanos | 1));
+    }
+
+    @Override
+    public String getCaller() {
+        return caller;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getTrees() {
+        return trees.sum();
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    @Override
+    public double getTreesPerSecond() {
+        long nanos = getTotalNanos();
+        return nanos == 0 ? 0 : getTrees() * 1e9 / nanos;
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        long[] result = new long[latencyHistogram.length()];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = latencyHistogram.get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(caller).append(": ")
+                .append(getCalls()).append(" calls, ")
+                .append(getTrees()).append(" trees, ")
+                .append(getTotalNanos() / 1000000).append(" ms, ")
+                .append(String.format("%.1f", getTreesPerSecond())).append(" trees/s, latency histogram:");
+        long[] histogram = getLatencyHistogram();
+        for (int i = 0; i < histogram.length; ++i) {
+            if (histogram[i] != 0) {
+                sb.append(" 2^").append(i).append("ns=").append(histogram[i]);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.mbuzdalov.tree4network.cost;
+
+/**
+ * The management interface of {@link CostStatistics}, which is how the statistics are seen over JMX.
+ */
+public interface CostStatisticsMXBean {
+    String getCaller();
+    long getCalls();
+    long getTrees();
+    long getTotalNanos();
+    double getTreesPerSecond();
+    long[] getLatencyHistogram();
+}
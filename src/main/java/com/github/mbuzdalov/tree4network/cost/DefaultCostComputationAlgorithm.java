@@ -4,23 +4,80 @@ import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
 import com.github.mbuzdalov.tree4network.Graph;
 
 public final class DefaultCostComputationAlgorithm extends CostComputationAlgorithm {
-    private final RMQCostComputationAlgorithm rmq;
+    // With this many demand edge ends per vertex, the linear-time offline LCA is measurably faster than the RMQ one
+    private static final int MIN_EDGE_ENDS_PER_VERTEX_FOR_TARJAN = 32;
+    // With at least n / 32 demand edge ends per vertex, the distance rows of the dense algorithm are the fastest,
+    // even for path-like trees, where updating the rows is the most expensive
+    private static final int MAX_VERTICES_PER_EDGE_END_FOR_DENSE = 32;
+
+    private final int maxSize;
+    private RMQCostComputationAlgorithm rmq;
+    private TarjanCostComputationAlgorithm tarjan;
+    private DenseCostComputationAlgorithm dense;
 
     public DefaultCostComputationAlgorithm(int maxSize) {
-        this.rmq = new RMQCostComputationAlgorithm(maxSize);
+        this.maxSize = maxSize;
     }
 
     @Override
     public long compute(Graph weights, BoundedSimpleGraph tree) {
+        return choose(weights).compute(weights, tree);
+    }
+
+    @Override
+    public long compute(Graph weights, BoundedSimpleGraph tree, long upperBound) {
+        return choose(weights).compute(weights, tree, upperBound);
+    }
+
+    @Override
+    public long[] computeBatch(Graph weights, BoundedSimpleGraph[] trees) {
+        return choose(weights).computeBatch(weights, trees);
+    }
+
+    public long computeWithEdgeLoads(Graph weights, BoundedSimpleGraph tree, int[] parents, long[] loads) {
+        return getRMQ().computeWithEdgeLoads(weights, tree, parents, loads);
+    }
+
+    @Override
+    public long computeRelinkDelta(Graph weights, BoundedSimpleGraph tree,
+                                   int removedV1, int removedV2, int addedV1, int addedV2) {
+        // Only the crossing pairs are processed, so the RMQ-based algorithm is good enough even for dense graphs
+        return getRMQ().computeRelinkDelta(weights, tree, removedV1, removedV2, addedV1, addedV2);
+    }
+
+    private CostComputationAlgorithm choose(Graph weights) {
         long nWeightEdges = 0;
         for (int i = 0; i < weights.nVertices(); ++i) {
             nWeightEdges += weights.degree(i);
         }
         long v2 = (long) (weights.nVertices()) * weights.nVertices();
-        if (nWeightEdges >= v2) {
-            return NaiveCostComputationAlgorithm.getInstance().compute(weights, tree);
+        if (nWeightEdges * MAX_VERTICES_PER_EDGE_END_FOR_DENSE >= v2) {
+            return getDense();
+        } else if (nWeightEdges >= (long) (MIN_EDGE_ENDS_PER_VERTEX_FOR_TARJAN) * weights.nVertices()) {
+            return getTarjan();
         } else {
-            return rmq.compute(weights, tree);
+            return getRMQ();
+        }
+    }
+
+    private RMQCostComputationAlgorithm getRMQ() {
+        if (rmq == null) {
+            rmq = new RMQCostComputationAlgorithm(maxSize);
+        }
+        return rmq;
+    }
+
+    private TarjanCostComputationAlgorithm getTarjan() {
+        if (tarjan == null) {
+            tarjan = new TarjanCostComputationAlgorithm(maxSize);
+        }
+        return tarjan;
+    }
+
+    private DenseCostComputationAlgorithm getDense() {
+        if (dense == null) {
+            dense = new DenseCostComputationAlgorithm(maxSize);
         }
+        return dense;
     }
 }
@@ -0,0 +1,128 @@
+package com.github.mbuzdalov.tree4network.cost;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+
+/**
+ * <p>Computes the cost for dense demand graphs, where nearly every pair of vertices has a demand.</p>
+ * <p>The distances from a single vertex to all other vertices are kept in a flat array indexed by preorder.
+ * When the depth-first search moves from a vertex to its child, all distances grow by one except for those
+ * to the child's subtree, which is a contiguous range in preorder, so they decrease by one instead.
+ * The growth by one is kept as a common offset, so only the subtree range is updated,
+ * and the update is undone when the search returns. The cost is then gathered from the demands
+ * of each vertex with no branches at all, which is much faster than running a breadth-first search
+ * from every vertex, as {@link NaiveCostComputationAlgorithm} does.</p>
+ */
+public final class DenseCostComputationAlgorithm extends CostComputationAlgorithm {
+    private final int[] distances;
+    private final int[] preorderIndices;
+    private final int[] subtreeSizes;
+    private final int[] parents;
+    private final int[] stack;
+    private final int[] stackEdgeIndices;
+
+    public DenseCostComputationAlgorithm(int maxSize) {
+        distances = new int[maxSize];
+        preorderIndices = new int[maxSize];
+        subtreeSizes = new int[maxSize];
+        parents = new int[maxSize];
+        stack = new int[maxSize];
+        stackEdgeIndices = new int[maxSize];
+    }
+
+    @Override
+    public long compute(Graph weights, BoundedSimpleGraph tree) {
+        if (weights.nVertices() != tree.nVertices()) {
+            throw new IllegalArgumentException("Graph sizes do not match");
+        }
+        int n = tree.nVertices();
+        if (n > distances.length) {
+            throw new IllegalArgumentException("Graph is too large");
+        }
+        if (n == 0) {
+            return 0;
+        }
+
+        // First pass: preorder indices, subtree sizes, and the distances from the root
+        int preorderIndex = 0;
+        int stackSize = 1;
+        stack[0] = 0;
+        stackEdgeIndices[0] = 0;
+        parents[0] = -1;
+        preorderIndices[0] = preorderIndex;
+        distances[preorderIndex++] = 0;
+        while (stackSize > 0) {
+            int top = stackSize - 1;
+            int curr = stack[top];
+            int edgeIndex = stackEdgeIndices[top];
+            if (edgeIndex < tree.degree(curr)) {
+                stackEdgeIndices[top] = edgeIndex + 1;
+                int next = tree.getDestination(curr, edgeIndex);
+                if (next != parents[curr]) {
+                    parents[next] = curr;
+                    preorderIndices[next] = preorderIndex;
+                    distances[preorderIndex++] = stackSize;
+                    stack[stackSize] = next;
+                    stackEdgeIndices[stackSize] = 0;
+                    ++stackSize;
+                }
+            } else {
+                --stackSize;
+                subtreeSizes[curr] = preorderIndex - preorderIndices[curr];
+            }
+        }
+
+        // Second pass: move the source of the distance row along the same search, summing up the demands
+        long result = gather(weights, 0, 0);
+        int offset = 0;
+        stackSize = 1;
+        stackEdgeIndices[0] = 0;
+        while (stackSize > 0) {
+            int top = stackSize - 1;
+            int curr = stack[top];
+            int edgeIndex = stackEdgeIndices[top];
+            if (edgeIndex < tree.degree(curr)) {
+                stackEdgeIndices[top] = edgeIndex + 1;
+                int next = tree.getDestination(curr, edgeIndex);
+                if (next != parents[curr]) {
+                    ++offset;
+                    addToRange(preorderIndices[next], subtreeSizes[next], -2);
+                    result += gather(weights, next, offset);
+                    stack[stackSize] = next;
+                    stackEdgeIndices[stackSize] = 0;
+                    ++stackSize;
+                }
+            } else {
+                --stackSize;
+                if (stackSize > 0) {
+                    --offset;
+                    addToRange(preorderIndices[curr], subtreeSizes[curr], 2);
+                }
+            }
+        }
+
+        // Every demand has been counted from both of its ends
+        return result / 2;
+    }
+
+    private void addToRange(int from, int size, int delta) {
+        int[] distances = this.distances;
+        for (int i = from, until = from + size; i < until; ++i) {
+            distances[i] += delta;
+        }
+    }
+
+    private long gather(Graph weights, int source, int offset) {
+        int[] distances = this.distances;
+        int[] preorderIndices = this.preorderIndices;
+        int edgesEnd = weights.edgesEnd(source);
+        long weightedSum = 0;
+        long weightSum = 0;
+        for (int edge = weights.edgesBegin(source); edge < edgesEnd; ++edge) {
+            long w = weights.weightAt(edge);
+            weightedSum += w * distances[preorderIndices[weights.destinationAt(edge)]];
+            weightSum += w;
+        }
+        return weightedSum + weightSum * offset;
+    }
+}
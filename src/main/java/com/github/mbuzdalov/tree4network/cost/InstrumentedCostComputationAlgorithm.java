@@ -0,0 +1,73 @@
+package com.github.mbuzdalov.tree4network.cost;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+
+/**
+ * <p>Computes the costs using the given algorithm, recording the number of calls and their latencies
+ * into the {@link CostStatistics} of the given caller. Every call is also reported as a JFR event,
+ * which costs almost nothing when no recording is running.</p>
+ */
+public final class InstrumentedCostComputationAlgorithm extends CostComputationAlgorithm {
+    private final CostComputationAlgorithm base;
+    private final String caller;
+    private final CostStatistics statistics;
+
+    public InstrumentedCostComputationAlgorithm(CostComputationAlgorithm base, String caller) {
+        this.base = base;
+        this.caller = caller;
+        this.statistics = CostStatistics.forCaller(caller);
+    }
+
+    @Override
+    public long compute(Graph weights, BoundedSimpleGraph tree) {
+        CostComputationEvent event = new CostComputationEvent();
+        event.begin();
+        long t0 = System.nanoTime();
+        long result = base.compute(weights, tree);
+        finish(event, "compute", 1, t0);
+        return result;
+    }
+
+    @Override
+    public long compute(Graph weights, BoundedSimpleGraph tree, long upperBound) {
+        CostComputationEvent event = new CostComputationEvent();
+        event.begin();
+        long t0 = System.nanoTime();
+        long result = base.compute(weights, tree, upperBound);
+        finish(event, "computeBounded", 1, t0);
+        return result;
+    }
+
+    @Override
+    public long computeRelinkDelta(Graph weights, BoundedSimpleGraph tree,
+                                   int removedV1, int removedV2, int addedV1, int addedV2) {
+        CostComputationEvent event = new CostComputationEvent();
+        event.begin();
+        long t0 = System.nanoTime();
+        long result = base.computeRelinkDelta(weights, tree, removedV1, removedV2, addedV1, addedV2);
+        finish(event, "computeRelinkDelta", 1, t0);
+        return result;
+    }
+
+    @Override
+    public long[] computeBatch(Graph weights, BoundedSimpleGraph[] trees) {
+        CostComputationEvent event = new CostComputationEvent();
+        event.begin();
+        long t0 = System.nanoTime();
+        long[] result = base.computeBatch(weights, trees);
+        finish(event, "computeBatch", trees.length, t0);
+        return result;
+    }
+
+    private void finish(CostComputationEvent event, String method, int nTrees, long t0) {
+        statistics.record(nTrees, System.nanoTime() - t0);
+        event.end();
+        if (event.shouldCommit()) {
+            event.caller = caller;
+            event.method = method;
+            event.trees = nTrees;
+            event.commit();
+        }
+    }
+}
@@ -27,8 +27,10 @@ public final class NaiveCostComputationAlgorithm extends CostComputationAlgorith
 
         long result = 0;
         for (int src = 0; src < n; ++src) {
-            int nAdj = weights.degree(src);
-            if (nAdj == 0) {
+            // Every demand is counted from its smaller end
+            int edgesBegin = weights.upperEdgesBegin(src);
+            int edgesEnd = weights.edgesEnd(src);
+            if (edgesBegin == edgesEnd) {
                 continue;
             }
 
@@ -49,12 +51,11 @@ public final class NaiveCostComputationAlgorithm extends CostComputationAlgorith
                 }
             }
 
-            for (int i = 0; i < nAdj; ++i) {
-                int dst = weights.getDestination(src, i);
-                result += (long) (weights.getWeight(src, i)) * distArray[dst];
+            for (int edge = edgesBegin; edge < edgesEnd; ++edge) {
+                result += (long) (weights.weightAt(edge)) * distArray[weights.destinationAt(edge)];
             }
         }
 
-        return result / 2;
+        return result;
     }
 }
@@ -0,0 +1,136 @@
+package com.github.mbuzdalov.tree4network.cost;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>Computes the cost using the same Euler tour and RMQ as {@link RMQCostComputationAlgorithm},
+ * but processes the demands in parallel using a {@link ForkJoinPool}.</p>
+ * <p>The tree is loaded once by the calling thread, then the vertex range of the demand graph is split between
+ * the tasks, whose partial costs are summed up exactly. Small demand graphs are processed sequentially,
+ * as the overhead of forking tasks is not worth it.</p>
+ */
+public final class ParallelCostComputationAlgorithm extends CostComputationAlgorithm {
+    private static final int SEQUENTIAL_EDGE_ENDS_THRESHOLD = 1 << 16;
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final RMQCostComputationAlgorithm rmq;
+    private final ForkJoinPool pool;
+
+    public ParallelCostComputationAlgorithm(int maxSize) {
+        this(maxSize, ForkJoinPool.commonPool());
+    }
+
+    public ParallelCostComputationAlgorithm(int maxSize, ForkJoinPool pool) {
+        this.rmq = new RMQCostComputationAlgorithm(maxSize);
+        this.pool = pool;
+    }
+
+    @Override
+    public long compute(Graph weights, BoundedSimpleGraph tree) {
+        int n = weights.nVertices();
+        long nWeightEdges = 0;
+        for (int i = 0; i < n; ++i) {
+            nWeightEdges += weights.degree(i);
+        }
+        if (nWeightEdges < SEQUENTIAL_EDGE_ENDS_THRESHOLD || pool.getParallelism() == 1) {
+            return rmq.compute(weights, tree);
+        }
+        if (n != tree.nVertices()) {
+            throw new IllegalArgumentException("Graph sizes do not match");
+        }
+        rmq.ensureLoaded(tree);
+        int grain = Math.max(1, n / (pool.getParallelism() * TASKS_PER_THREAD));
+        return pool.invoke(new RangeTask(weights, 0, n, grain));
+    }
+
+    @Override
+    public long[] computeBatch(Graph weights, BoundedSimpleGraph[] trees) {
+        int n = weights.nVertices();
+        long nWeightEdges = 0;
+        for (int i = 0; i < n; ++i) {
+            nWeightEdges += weights.degree(i);
+        }
+        if (nWeightEdges * trees.length < SEQUENTIAL_EDGE_ENDS_THRESHOLD || pool.getParallelism() == 1) {
+            return rmq.computeBatch(weights, trees);
+        }
+        int grain = Math.max(1, n / (pool.getParallelism() * TASKS_PER_THREAD));
+        long[] result = new long[trees.length];
+        // The same chunks as in RMQCostComputationAlgorithm.computeBatch, to bound the memory for the engines
+        for (int from = 0; from < trees.length; from += RMQCostComputationAlgorithm.MAX_BATCH_ENGINES) {
+            int until = Math.min(trees.length, from + RMQCostComputationAlgorithm.MAX_BATCH_ENGINES);
+            RMQCostComputationAlgorithm[] engines = rmq.loadBatch(weights, trees, from, until);
+            long[] chunk = pool.invoke(new BatchRangeTask(weights, engines, 0, n, grain));
+            System.arraycopy(chunk, 0, result, from, chunk.length);
+        }
+        return result;
+    }
+
+    @Override
+    public long computeRelinkDelta(Graph weights, BoundedSimpleGraph tree,
+                                   int removedV1, int removedV2, int addedV1, int addedV2) {
+        return rmq.computeRelinkDelta(weights, tree, removedV1, removedV2, addedV1, addedV2);
+    }
+
+    // The tasks are never serialized, they only happen to extend a serializable class
+    @SuppressWarnings("serial")
+    private final class RangeTask extends RecursiveTask<Long> {
+        private final Graph weights;
+        private final int from, until, grain;
+
+        private RangeTask(Graph weights, int from, int until, int grain) {
+            this.weights = weights;
+            this.from = from;
+            this.until = until;
+            this.grain = grain;
+        }
+
+        @Override
+        protected Long compute() {
+            if (until - from <= grain) {
+                return rmq.computeRange(weights, from, until);
+            }
+            int mid = (from + until) >>> 1;
+            RangeTask right = new RangeTask(weights, mid, until, grain);
+            right.fork();
+            long leftResult = new RangeTask(weights, from, mid, grain).compute();
+            return leftResult + right.join();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class BatchRangeTask extends RecursiveTask<long[]> {
+        private final Graph weights;
+        private final RMQCostComputationAlgorithm[] engines;
+        private final int from, until, grain;
+
+        private BatchRangeTask(Graph weights, RMQCostComputationAlgorithm[] engines, int from, int until, int grain) {
+            this.weights = weights;
+            this.engines = engines;
+            this.from = from;
+            this.until = until;
+            this.grain = grain;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (until - from <= grain) {
+                long[] result = new long[engines.length];
+                RMQCostComputationAlgorithm.computeBatchRange(weights, engines, from, until, result);
+                return result;
+            }
+            int mid = (from + until) >>> 1;
+            BatchRangeTask right = new BatchRangeTask(weights, engines, mid, until, grain);
+            right.fork();
+            long[] result = new BatchRangeTask(weights, engines, from, mid, grain).compute();
+            long[] rightResult = right.join();
+            for (int i = 0; i < result.length; ++i) {
+                result[i] += rightResult[i];
+            }
+            return result;
+        }
+    }
+}
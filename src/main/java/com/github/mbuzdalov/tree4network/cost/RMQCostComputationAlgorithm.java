@@ -2,23 +2,110 @@ package com.github.mbuzdalov.tree4network.cost;
 
 import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
 import com.github.mbuzdalov.tree4network.Graph;
-import com.github.mbuzdalov.tree4network.rmq.LinLogSpaceRMQ;
+import com.github.mbuzdalov.tree4network.rmq.FlatSparseTableRMQ;
+import com.github.mbuzdalov.tree4network.rmq.LinSpaceIncrementalRMQ;
+import com.github.mbuzdalov.tree4network.rmq.RangeMinimumQuery;
 
 import java.util.Arrays;
+import java.util.function.Function;
 
 public final class RMQCostComputationAlgorithm extends CostComputationAlgorithm {
+    // From this number of vertices, the sparse table takes hundreds of megabytes, so the linear-space RMQ is used.
+    // It is slower for denser demand graphs, as the queries are slower, but faster for the sparsest ones,
+    // as it is rebuilt faster.
+    private static final int MIN_SIZE_FOR_LINEAR_RMQ = 1 << 20;
+
+    // Either the depths along the Euler tour, or the depths in the preorder
     private final int[] depths;
+    // For each position in depths, the vertex that is the LCA when the minimum of a query is at this position
+    private final int[] lcaVertices;
+    // Whether the preorder is used, in which case the queries are shifted by one
+    private final boolean preorderLCA;
+    private final int queryShift;
     private final int[] vertexIndices;
-    private final LinLogSpaceRMQ rmq;
+    private final int[] preorder;
+    private final int[] preorderIndices;
+    private final int[] subtreeSizes;
+    private final int[] parents;
+    private final int[] stack;
+    private final int[] stackEdgeIndices;
+    private final Function<int[], RangeMinimumQuery> rmqFactory;
+    private final RangeMinimumQuery rmq;
+
+    // When computing with an upper bound, whether to process the heaviest vertices first, and in which order
+    private final boolean heaviestFirst;
+    private final WeightSummary weightSummary = new WeightSummary();
+
+    // The maximum number of trees evaluated in one pass over the demands, which bounds the number of engines
+    static final int MAX_BATCH_ENGINES = 8;
+
+    // Engines holding the states for all but the first tree of the last batch chunk, at most MAX_BATCH_ENGINES
+    private RMQCostComputationAlgorithm[] batchEngines;
+
+    // The tree for which the arrays above are valid, and its modification count at the time of loading
+    private BoundedSimpleGraph loadedTree;
+    private int loadedModificationCount;
+
+    // The length of the array the RMQ was built for, or -1 if it was never built
+    private int loadedTourSize = -1;
 
     private BoundedSimpleGraph tree;
     private int depthArrayIndex;
+    private int firstChangedIndex, lastChangedIndex;
+    private int preorderIndex;
     private int depth;
 
     public RMQCostComputationAlgorithm(int maxSize) {
-        depths = new int[maxSize * 2];
-        rmq = new LinLogSpaceRMQ(depths);
+        this(maxSize, false);
+    }
+
+    public RMQCostComputationAlgorithm(int maxSize, boolean heaviestFirst) {
+        this(maxSize, heaviestFirst, maxSize < MIN_SIZE_FOR_LINEAR_RMQ,
+                maxSize < MIN_SIZE_FOR_LINEAR_RMQ ? FlatSparseTableRMQ::new : LinSpaceIncrementalRMQ::new);
+    }
+
+    /**
+     * Creates the algorithm with the given range minimum query structure over the depths along the Euler tour.
+     *
+     * @param maxSize the maximum number of vertices.
+     * @param heaviestFirst whether to process the heaviest vertices first when computing with an upper bound.
+     * @param rmqFactory the function that creates the range minimum query structure over the given array.
+     */
+    public RMQCostComputationAlgorithm(int maxSize, boolean heaviestFirst,
+                                       Function<int[], RangeMinimumQuery> rmqFactory) {
+        this(maxSize, heaviestFirst, false, rmqFactory);
+    }
+
+    /**
+     * <p>Creates the algorithm with the given range minimum query structure.</p>
+     * <p>If {@code preorderLCA} is {@code false}, the structure is built over the depths along the Euler tour,
+     * which has {@code 2 * maxSize - 1} entries whose adjacent values differ by exactly one.
+     * Otherwise, it is built over the depths of the vertices in the preorder, which has only {@code maxSize} entries,
+     * but the adjacent values may differ arbitrarily, so structures such as {@link LinSpaceIncrementalRMQ}
+     * cannot be used. For two different vertices {@code u} and {@code v} that come in this order in the preorder,
+     * their LCA is the parent of the shallowest vertex after {@code u} up to {@code v} inclusively.</p>
+     *
+     * @param maxSize the maximum number of vertices.
+     * @param heaviestFirst whether to process the heaviest vertices first when computing with an upper bound.
+     * @param preorderLCA whether to use the preorder instead of the Euler tour.
+     * @param rmqFactory the function that creates the range minimum query structure over the given array.
+     */
+    public RMQCostComputationAlgorithm(int maxSize, boolean heaviestFirst, boolean preorderLCA,
+                                       Function<int[], RangeMinimumQuery> rmqFactory) {
+        this.heaviestFirst = heaviestFirst;
+        this.preorderLCA = preorderLCA;
+        this.rmqFactory = rmqFactory;
+        queryShift = preorderLCA ? 1 : 0;
+        depths = new int[preorderLCA ? maxSize : maxSize * 2];
+        lcaVertices = new int[depths.length];
+        rmq = rmqFactory.apply(depths);
         vertexIndices = new int[maxSize];
+        preorder = new int[maxSize];
+        preorderIndices = new int[maxSize];
+        subtreeSizes = new int[maxSize];
+        parents = new int[maxSize];
+        stack = new int[maxSize];
+        stackEdgeIndices = new int[maxSize];
     }
 
     @Override
@@ -26,55 +113,339 @@ public final class RMQCostComputationAlgorithm extends CostComputationAlgorithm
         if (weights.nVertices() != tree.nVertices()) {
             throw new IllegalArgumentException("Graph sizes do not match");
         }
-        if (weights.nVertices() > vertexIndices.length) {
-            throw new IllegalArgumentException("Graph is too large");
+        ensureLoaded(tree);
+        return computeRange(weights, 0, weights.nVertices());
+    }
+
+    @Override
+    public long compute(Graph weights, BoundedSimpleGraph tree, long upperBound) {
+        if (weights.nVertices() != tree.nVertices()) {
+            throw new IllegalArgumentException("Graph sizes do not match");
         }
+        ensureLoaded(tree);
 
-        this.tree = tree;
-        depthArrayIndex = 0;
-        depth = 0;
-        Arrays.fill(vertexIndices, -1);
-        dfs(0, -1);
-        rmq.reloadArray(depthArrayIndex);
+        int n = weights.nVertices();
+        int[] order = heaviestFirst ? weightSummary.heaviestFirstOrder(weights) : null;
+        // every demand not yet processed contributes at least its weight, as the distance is at least one
+        long remainingWeight = weightSummary.totalPairWeight(weights);
+        long result = 0;
+        for (int i = 0; i < n; ++i) {
+            int curr = order == null ? i : order[i];
+            int edgesEnd = weights.edgesEnd(curr);
+            int currVI = vertexIndices[curr];
+            for (int edge = weights.upperEdgesBegin(curr); edge < edgesEnd; ++edge) {
+                int w = weights.weightAt(edge);
+                result += (long) (w) * indexDistance(currVI, vertexIndices[weights.destinationAt(edge)]);
+                remainingWeight -= w;
+            }
+            if (result + remainingWeight > upperBound) {
+                return result + remainingWeight;
+            }
+        }
+        return result;
+    }
 
+    // Sums up the costs of the demands originating from the given vertex range, the tree should be loaded.
+    // This method does not modify the state, so it can be called concurrently.
+    long computeRange(Graph weights, int from, int until) {
         long result = 0;
-        for (int curr = 0; curr < weights.nVertices(); ++curr) {
-            int degree = weights.degree(curr);
+        for (int curr = from; curr < until; ++curr) {
+            int edgesEnd = weights.edgesEnd(curr);
             int currVI = vertexIndices[curr];
-            int currDepth = depths[currVI];
-            for (int j = 0; j < degree; ++j) {
-                int next = weights.getDestination(curr, j);
-                int nextVI = vertexIndices[next];
-                if (currVI < nextVI) {
-                    int w = weights.getWeight(curr, j);
-                    int nextDepth = depths[nextVI];
-                    int rmqDepth = depths[rmq.minimumIndex(currVI, nextVI + 1)];
-                    int distance = currDepth + nextDepth - 2 * rmqDepth;
-                    result += (long) (w) * distance;
+            for (int edge = weights.upperEdgesBegin(curr); edge < edgesEnd; ++edge) {
+                int w = weights.weightAt(edge);
+                result += (long) (w) * indexDistance(currVI, vertexIndices[weights.destinationAt(edge)]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * <p>Computes the costs of several trees in one pass over the demand graph per at most
+     * {@link #MAX_BATCH_ENGINES} trees.</p>
+     * <p>Every tree of a chunk is loaded into its own engine, which holds the per-tree arrays and the RMQ
+     * for the tree, so the memory is that of up to {@link #MAX_BATCH_ENGINES} such engines, for instance,
+     * about 2.5 megabytes each for 10<sup>4</sup> vertices with the Euler tour and the sparse table RMQ,
+     * and about half of that with the preorder. The engines are kept for the subsequent batches.</p>
+     *
+     * @param weights the demand graph.
+     * @param trees the trees to evaluate.
+     * @return the array of costs, one for each tree, in the same order.
+     */
+    @Override
+    public long[] computeBatch(Graph weights, BoundedSimpleGraph[] trees) {
+        long[] result = new long[trees.length];
+        for (int from = 0; from < trees.length; from += MAX_BATCH_ENGINES) {
+            int until = Math.min(trees.length, from + MAX_BATCH_ENGINES);
+            RMQCostComputationAlgorithm[] engines = loadBatch(weights, trees, from, until);
+            long[] chunk = new long[until - from];
+            computeBatchRange(weights, engines, 0, weights.nVertices(), chunk);
+            System.arraycopy(chunk, 0, result, from, chunk.length);
+        }
+        return result;
+    }
+
+    // Loads the trees with indices in [from; until), at most MAX_BATCH_ENGINES of them, into their own engines,
+    // the first one being this engine, and returns these engines
+    RMQCostComputationAlgorithm[] loadBatch(Graph weights, BoundedSimpleGraph[] trees, int from, int until) {
+        int nTrees = until - from;
+        if (nTrees > MAX_BATCH_ENGINES) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_ENGINES + " trees can be loaded at once");
+        }
+        if (batchEngines == null || batchEngines.length < nTrees) {
+            RMQCostComputationAlgorithm[] newEngines = new RMQCostComputationAlgorithm[nTrees];
+            newEngines[0] = this;
+            for (int i = 1; i < nTrees; ++i) {
+                newEngines[i] = batchEngines != null && i < batchEngines.length
+                        ? batchEngines[i]
+                        : new RMQCostComputationAlgorithm(vertexIndices.length, heaviestFirst, preorderLCA, rmqFactory);
+            }
+            batchEngines = newEngines;
+        }
+        RMQCostComputationAlgorithm[] engines = new RMQCostComputationAlgorithm[nTrees];
+        for (int i = 0; i < nTrees; ++i) {
+            BoundedSimpleGraph tree = trees[from + i];
+            if (weights.nVertices() != tree.nVertices()) {
+                throw new IllegalArgumentException("Graph sizes do not match");
+            }
+            engines[i] = batchEngines[i];
+            engines[i].ensureLoaded(tree);
+        }
+        return engines;
+    }
+
+    // Adds up the costs of the demands originating from the given vertex range to the result array,
+    // one entry per engine. As with computeRange, this can be called concurrently.
+    static void computeBatchRange(Graph weights, RMQCostComputationAlgorithm[] engines,
+                                  int from, int until, long[] result) {
+        int nEngines = engines.length;
+        for (int curr = from; curr < until; ++curr) {
+            int edgesEnd = weights.edgesEnd(curr);
+            for (int edge = weights.upperEdgesBegin(curr); edge < edgesEnd; ++edge) {
+                int next = weights.destinationAt(edge);
+                long w = weights.weightAt(edge);
+                for (int t = 0; t < nEngines; ++t) {
+                    result[t] += w * engines[t].distance(curr, next);
                 }
             }
         }
+    }
+
+    /**
+     * <p>Computes the cost of the given tree, and additionally the traffic carried by each of its edges.</p>
+     * <p>The tree is considered to be rooted at vertex 0. For every vertex {@code v} except the root,
+     * {@code parents[v]} is set to its parent, and {@code loads[v]} is set to the total weight of the demands
+     * routed over the edge between {@code v} and {@code parents[v]}. For the root, the parent is -1 and the load is 0.
+     * The returned cost is equal to the sum of all loads.</p>
+     *
+     * @param weights the demand graph.
+     * @param tree the tree to evaluate.
+     * @param parents the array to store the parents of the vertices.
+     * @param loads the array to store the loads of the edges to the parents.
+     * @return the cost of the tree.
+     */
+    public long computeWithEdgeLoads(Graph weights, BoundedSimpleGraph tree, int[] parents, long[] loads) {
+        if (weights.nVertices() != tree.nVertices()) {
+            throw new IllegalArgumentException("Graph sizes do not match");
+        }
+        int n = tree.nVertices();
+        if (parents.length < n || loads.length < n) {
+            throw new IllegalArgumentException("Output arrays are too short");
+        }
+        ensureLoaded(tree);
 
-        this.tree = null;
+        // Each demand adds its weight to the paths from its ends to the root, and removes it twice above the LCA
+        Arrays.fill(loads, 0, n, 0);
+        for (int curr = 0; curr < n; ++curr) {
+            int edgesEnd = weights.edgesEnd(curr);
+            int currVI = vertexIndices[curr];
+            for (int edge = weights.upperEdgesBegin(curr); edge < edgesEnd; ++edge) {
+                int next = weights.destinationAt(edge);
+                int nextVI = vertexIndices[next];
+                long w = weights.weightAt(edge);
+                loads[curr] += w;
+                loads[next] += w;
+                int lcaIndex = currVI < nextVI
+                        ? rmq.minimumIndex(currVI + queryShift, nextVI + 1)
+                        : rmq.minimumIndex(nextVI + queryShift, currVI + 1);
+                loads[lcaVertices[lcaIndex]] -= 2 * w;
+            }
+        }
+
+        long result = 0;
+        for (int i = n; --i > 0; ) {
+            int vertex = preorder[i];
+            long load = loads[vertex];
+            loads[this.parents[vertex]] += load;
+            result += load;
+        }
+        System.arraycopy(this.parents, 0, parents, 0, n);
+        return result;
+    }
+
+    @Override
+    public long computeRelinkDelta(Graph weights, BoundedSimpleGraph tree,
+                                   int removedV1, int removedV2, int addedV1, int addedV2) {
+        if (weights.nVertices() != tree.nVertices()) {
+            throw new IllegalArgumentException("Graph sizes do not match");
+        }
+        ensureLoaded(tree);
+
+        // After removing the edge, the subtree of its lower end gets detached from the rest of the tree.
+        // Distances inside each of the two parts do not change, and for the pairs that cross the cut,
+        // only the parts of the paths from the endpoints of the removed edge to the endpoints of the added edge change.
+        int inner = preorderIndices[removedV1] < preorderIndices[removedV2] ? removedV2 : removedV1;
+        int outer = removedV1 + removedV2 - inner;
+        if (parents[inner] != outer) {
+            throw new IllegalArgumentException("The removed edge does not belong to the tree");
+        }
+        int subtreeBegin = preorderIndices[inner];
+        int subtreeEnd = subtreeBegin + subtreeSizes[inner];
+        boolean addedV1Inside = isInRange(addedV1, subtreeBegin, subtreeEnd);
+        if (addedV1Inside == isInRange(addedV2, subtreeBegin, subtreeEnd)) {
+            throw new IllegalArgumentException("The added edge does not connect the two parts of the tree");
+        }
+        int newInner = addedV1Inside ? addedV1 : addedV2;
+        int newOuter = addedV1 + addedV2 - newInner;
+
+        // Enumerate the crossing pairs from the smaller side
+        int n = tree.nVertices();
+        if (2 * subtreeSizes[inner] <= n) {
+            return relinkDeltaFromRange(weights, subtreeBegin, subtreeEnd,
+                    subtreeBegin, subtreeEnd, inner, newInner, outer, newOuter);
+        } else {
+            return relinkDeltaFromRange(weights, 0, subtreeBegin, subtreeBegin, subtreeEnd, outer, newOuter, inner, newInner)
+                    + relinkDeltaFromRange(weights, subtreeEnd, n, subtreeBegin, subtreeEnd, outer, newOuter, inner, newInner);
+        }
+    }
+
+    private long relinkDeltaFromRange(Graph weights, int from, int until, int subtreeBegin, int subtreeEnd,
+                                      int thisOld, int thisNew, int thatOld, int thatNew) {
+        boolean thisInside = isInRange(thisOld, subtreeBegin, subtreeEnd);
+        long result = 0;
+        for (int i = from; i < until; ++i) {
+            int curr = preorder[i];
+            int edgesEnd = weights.edgesEnd(curr);
+            long currWeight = 0;
+            for (int edge = weights.edgesBegin(curr); edge < edgesEnd; ++edge) {
+                int next = weights.destinationAt(edge);
+                if (isInRange(next, subtreeBegin, subtreeEnd) != thisInside) {
+                    int w = weights.weightAt(edge);
+                    currWeight += w;
+                    result += (long) (w) * (distance(next, thatNew) - distance(next, thatOld));
+                }
+            }
+            if (currWeight != 0) {
+                result += currWeight * (distance(curr, thisNew) - distance(curr, thisOld));
+            }
+        }
         return result;
     }
 
-    private void dfs(int vertex, int parent) {
+    private boolean isInRange(int vertex, int from, int until) {
+        int index = preorderIndices[vertex];
+        return from <= index && index < until;
+    }
+
+    private int distance(int v1, int v2) {
+        return indexDistance(vertexIndices[v1], vertexIndices[v2]);
+    }
+
+    // The distance between the vertices at the given positions in the depths array
+    private int indexDistance(int i1, int i2) {
+        if (i1 == i2) {
+            return 0;
+        }
+        if (i1 > i2) {
+            int tmp = i1;
+            i1 = i2;
+            i2 = tmp;
+        }
+        return depths[i1] + depths[i2] - 2 * (rmq.minimumValue(i1 + queryShift, i2 + 1) - queryShift);
+    }
+
+    void ensureLoaded(BoundedSimpleGraph tree) {
+        if (tree.nVertices() > vertexIndices.length) {
+            throw new IllegalArgumentException("Graph is too large");
+        }
+        if (loadedTree != tree || loadedModificationCount != tree.modificationCount()) {
+            this.tree = tree;
+            depthArrayIndex = 0;
+            preorderIndex = 0;
+            depth = 0;
+            firstChangedIndex = -1;
+            lastChangedIndex = -1;
+            Arrays.fill(vertexIndices, 0, tree.nVertices(), -1);
+            dfs();
+            if (depthArrayIndex != loadedTourSize) {
+                rmq.reloadArray(depthArrayIndex);
+                loadedTourSize = depthArrayIndex;
+            } else if (firstChangedIndex >= 0) {
+                // Local moves change only a part of the tour, so only this part of the RMQ is rebuilt
+                rmq.reloadRange(firstChangedIndex, lastChangedIndex + 1, depthArrayIndex);
+            }
+            this.tree = null;
+            loadedTree = tree;
+            loadedModificationCount = tree.modificationCount();
+        }
+    }
+
+    // The depth-first search is iterative, as the trees may be as deep as they are large
+    private void dfs() {
+        int stackSize = 1;
+        stack[0] = 0;
+        stackEdgeIndices[0] = 0;
+        enter(0, -1);
+        while (stackSize > 0) {
+            int top = stackSize - 1;
+            int curr = stack[top];
+            int edgeIndex = stackEdgeIndices[top];
+            if (edgeIndex < tree.degree(curr)) {
+                stackEdgeIndices[top] = edgeIndex + 1;
+                int next = tree.getDestination(curr, edgeIndex);
+                if (next != parents[curr]) {
+                    ++depth;
+                    stack[stackSize] = next;
+                    stackEdgeIndices[stackSize] = 0;
+                    ++stackSize;
+                    enter(next, curr);
+                }
+            } else {
+                subtreeSizes[curr] = preorderIndex - preorderIndices[curr];
+                --stackSize;
+                if (stackSize > 0) {
+                    --depth;
+                    if (!preorderLCA) {
+                        appendToTour(stack[stackSize - 1]);
+                    }
+                }
+            }
+        }
+    }
+
+    private void enter(int vertex, int parent) {
         if (vertexIndices[vertex] == -1) {
             vertexIndices[vertex] = depthArrayIndex;
         }
-        depths[depthArrayIndex] = depth;
-        ++depthArrayIndex;
+        // In the preorder, the minimum is at the child of the LCA, otherwise it is at the LCA itself
+        appendToTour(preorderLCA ? parent : vertex);
 
-        int degree = tree.degree(vertex);
-        for (int i = 0; i < degree; ++i) {
-            int next = tree.getDestination(vertex, i);
-            if (next != parent) {
-                ++depth;
-                dfs(next, vertex);
-                depths[depthArrayIndex] = --depth;
-                ++depthArrayIndex;
+        preorder[preorderIndex] = vertex;
+        preorderIndices[vertex] = preorderIndex;
+        parents[vertex] = parent;
+        ++preorderIndex;
+    }
+
+    private void appendToTour(int lcaVertex) {
+        // The positions are visited in increasing order, so the first change is recorded only once
+        if (depths[depthArrayIndex] != depth) {
+            if (firstChangedIndex < 0) {
+                firstChangedIndex = depthArrayIndex;
             }
+            lastChangedIndex = depthArrayIndex;
+            depths[depthArrayIndex] = depth;
         }
+        lcaVertices[depthArrayIndex] = lcaVertex;
+        ++depthArrayIndex;
     }
 }
@@ -0,0 +1,108 @@
+package com.github.mbuzdalov.tree4network.cost;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.util.DisjointSet;
+
+import java.util.Arrays;
+
+/**
+ * <p>Computes the cost using Tarjan's offline lowest common ancestor algorithm.</p>
+ * <p>Each demand pair is resolved when the second of its endpoints is finished by the depth-first search,
+ * which takes near-linear time overall and needs only a few arrays of size n, as opposed to
+ * the sparse table of {@link RMQCostComputationAlgorithm}.</p>
+ */
+public final class TarjanCostComputationAlgorithm extends CostComputationAlgorithm {
+    private final int[] depths;
+    private final int[] parents;
+    private final int[] ancestors;
+    private final int[] stack;
+    private final int[] stackEdgeIndices;
+    private final boolean[] finished;
+    private final DisjointSet ds;
+    private final WeightSummary weightSummary = new WeightSummary();
+
+    public TarjanCostComputationAlgorithm(int maxSize) {
+        depths = new int[maxSize];
+        parents = new int[maxSize];
+        ancestors = new int[maxSize];
+        stack = new int[maxSize];
+        stackEdgeIndices = new int[maxSize];
+        finished = new boolean[maxSize];
+        ds = new DisjointSet(maxSize);
+    }
+
+    @Override
+    public long compute(Graph weights, BoundedSimpleGraph tree) {
+        return compute(weights, tree, Long.MAX_VALUE);
+    }
+
+    @Override
+    public long compute(Graph weights, BoundedSimpleGraph tree, long upperBound) {
+        if (weights.nVertices() != tree.nVertices()) {
+            throw new IllegalArgumentException("Graph sizes do not match");
+        }
+        int n = tree.nVertices();
+        if (n > depths.length) {
+            throw new IllegalArgumentException("Graph is too large");
+        }
+        if (n == 0) {
+            return 0;
+        }
+
+        Arrays.fill(finished, 0, n, false);
+        ds.reset();
+
+        // every demand not yet processed contributes at least its weight, as the distance is at least one
+        long remainingWeight = upperBound == Long.MAX_VALUE ? 0 : weightSummary.totalPairWeight(weights);
+        long result = 0;
+        int stackSize = 0;
+        depths[0] = 0;
+        parents[0] = -1;
+        ancestors[0] = 0;
+        stack[0] = 0;
+        stackEdgeIndices[0] = 0;
+        ++stackSize;
+
+        while (stackSize > 0) {
+            int top = stackSize - 1;
+            int curr = stack[top];
+            int edgeIndex = stackEdgeIndices[top];
+            if (edgeIndex < tree.degree(curr)) {
+                stackEdgeIndices[top] = edgeIndex + 1;
+                int next = tree.getDestination(curr, edgeIndex);
+                if (next != parents[curr]) {
+                    depths[next] = depths[curr] + 1;
+                    parents[next] = curr;
+                    ancestors[next] = next;
+                    stack[stackSize] = next;
+                    stackEdgeIndices[stackSize] = 0;
+                    ++stackSize;
+                }
+            } else {
+                --stackSize;
+                finished[curr] = true;
+                int currDepth = depths[curr];
+                int edgesEnd = weights.edgesEnd(curr);
+                for (int edge = weights.edgesBegin(curr); edge < edgesEnd; ++edge) {
+                    int next = weights.destinationAt(edge);
+                    if (finished[next]) {
+                        int lcaDepth = depths[ancestors[ds.get(next)]];
+                        int w = weights.weightAt(edge);
+                        result += (long) (w) * (currDepth + depths[next] - 2 * lcaDepth);
+                        remainingWeight -= w;
+                    }
+                }
+                if (result + remainingWeight > upperBound) {
+                    return result + remainingWeight;
+                }
+                int parent = parents[curr];
+                if (parent != -1) {
+                    ds.unite(parent, curr);
+                    ancestors[ds.get(parent)] = parent;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.mbuzdalov.tree4network.cost;
+
+import com.github.mbuzdalov.tree4network.Graph;
+
+import java.util.Arrays;
+
+// Per-demand-graph data used by the bounded cost computations, recomputed only when the graph changes
+final class WeightSummary {
+    private Graph weights;
+    private long totalPairWeight;
+    private long[] vertexWeights;
+    private int[] heaviestFirstOrder;
+
+    long totalPairWeight(Graph weights) {
+        load(weights);
+        return totalPairWeight;
+    }
+
+    int[] heaviestFirstOrder(Graph weights) {
+        load(weights);
+        if (heaviestFirstOrder == null) {
+            int n = weights.nVertices();
+            Integer[] order = new Integer[n];
+            for (int v = 0; v < n; ++v) {
+                order[v] = v;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(vertexWeights[b], vertexWeights[a]));
+            heaviestFirstOrder = new int[n];
+            for (int i = 0; i < n; ++i) {
+                heaviestFirstOrder[i] = order[i];
+            }
+        }
+        return heaviestFirstOrder;
+    }
+
+    private void load(Graph weights) {
+        if (this.weights != weights) {
+            int n = weights.nVertices();
+            vertexWeights = new long[n];
+            long sum = 0;
+            for (int v = 0; v < n; ++v) {
+                int edgesEnd = weights.edgesEnd(v);
+                for (int edge = weights.edgesBegin(v); edge < edgesEnd; ++edge) {
+                    vertexWeights[v] += weights.weightAt(edge);
+                }
+                sum += vertexWeights[v];
+            }
+            totalPairWeight = sum / 2;
+            heaviestFirstOrder = null;
+            this.weights = weights;
+        }
+    }
+}
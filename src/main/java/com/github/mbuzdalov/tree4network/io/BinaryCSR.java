@@ -0,0 +1,277 @@
+package com.github.mbuzdalov.tree4network.io;
+
+import com.github.mbuzdalov.tree4network.Graph;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <p>Reads and writes graphs in a binary compressed sparse row format, which can be memory-mapped
+ * instead of being parsed, see {@link MappedCSRGraph}.</p>
+ * <p>The file consists of little-endian 32-bit integers: the magic number, the format version,
+ * the number of vertices {@code n}, the number of edge ends {@code m} (twice the number of edges),
+ * then {@code n + 1} row offsets, {@code n} offsets of the upper parts of the rows,
+ * {@code m} destinations and {@code m} weights, with the same meaning as in {@link Graph}.</p>
+ * <p>When a file is mapped, the offsets and the destinations are validated in one sequential pass,
+ * so that a truncated or corrupted file is reported when it is opened rather than while running.</p>
+ */
+public final class BinaryCSR {
+    private BinaryCSR() {}
+
+    private static final int MAGIC = 0x4E345443; // "CT4N" in little-endian bytes
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    public static void write(Graph graph, File file) throws IOException {
+        int n = graph.nVertices();
+        int m = n == 0 ? 0 : graph.edgesEnd(n - 1);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m);
+            for (int v = 0; v <= n; ++v) {
+                put(channel, buffer, v == n ? m : graph.edgesBegin(v));
+            }
+            for (int v = 0; v < n; ++v) {
+                put(channel, buffer, graph.upperEdgesBegin(v));
+            }
+            for (int e = 0; e < m; ++e) {
+                put(channel, buffer, graph.destinationAt(e));
+            }
+            for (int e = 0; e < m; ++e) {
+                put(channel, buffer, graph.weightAt(e));
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static void put(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < 4) {
+            flush(channel, buffer);
+        }
+        buffer.putInt(value);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public static MappedCSRGraph map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mappings stay valid after the channel is closed
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("The file is too short to be a binary CSR graph: " + file);
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("The file is not a binary CSR graph: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary CSR version " + version + ": " + file);
+            }
+            int n = header.getInt();
+            int m = header.getInt();
+            long expectedSize = HEADER_SIZE + 4L * (2L * n + 1) + 8L * m;
+            if (n < 0 || m < 0 || channel.size() != expectedSize) {
+                throw new IOException("The binary CSR graph has the size " + channel.size()
+                        + " but " + expectedSize + " is expected: " + file);
+            }
+            MappedCSRGraph graph = new MappedCSRGraph(channel, HEADER_SIZE, n, m);
+            validate(graph, m, file);
+            return graph;
+        }
+    }
+
+    // Checks everything the cost computations rely on for staying within the arrays, in one pass over the file.
+    // The symmetry of the edges is not checked, as its violation does not break anything but the costs.
+    private static void validate(Graph graph, int m, File file) throws IOException {
+        int n = graph.nVertices();
+        int prevEnd = 0;
+        for (int v = 0; v < n; ++v) {
+            int begin = graph.edgesBegin(v);
+            int upper = graph.upperEdgesBegin(v);
+            int end = graph.edgesEnd(v);
+            if (begin != prevEnd || begin > upper || upper > end || end > m) {
+                throw new IOException("The binary CSR graph has invalid offsets for vertex " + v + ": " + file);
+            }
+            for (int e = begin; e < end; ++e) {
+                int u = graph.destinationAt(e);
+                if (u < 0 || u >= n || (e < upper ? u >= v : u <= v)) {
+                    throw new IOException("The binary CSR graph has invalid destination " + u
+                            + " for vertex " + v + ": " + file);
+                }
+            }
+            prevEnd = end;
+        }
+        if (prevEnd != m) {
+            throw new IOException("The binary CSR graph has " + m + " edge ends but the offsets cover "
+                    + prevEnd + ": " + file);
+        }
+    }
+
+    /**
+     * <p>Converts a gzipped CSV graph to a binary CSR file, which is the same as
+     * {@code write(GraphFromCSV.fromGZippedFile(input), output)} but does not construct the graph on the heap,
+     * so the graphs larger than the heap can be converted.</p>
+     * <p>The input is read twice: the first pass counts the neighbours of every vertex, and the second pass writes
+     * the edges directly to their places in the memory-mapped output file. Then the parallel edges are merged
+     * in place, and the file is truncated. Only a few arrays with one element per vertex are kept on the heap.</p>
+     *
+     * @param input the gzipped CSV file to convert.
+     * @param output the binary CSR file to write.
+     * @throws IOException if reading or writing fails.
+     */
+    public static void convertGZippedCSV(File input, File output) throws IOException {
+        DegreeCounter counter = new DegreeCounter();
+        try (GZIPInputStream stream = new GZIPInputStream(new FileInputStream(input))) {
+            GraphFromCSV.readEdges(stream, counter);
+        }
+        int n = counter.nVertices;
+        int rawM = (int) (2 * counter.nEdges);
+        // The same layout as in GraphBuilder: the lower neighbours first, each part filled from its end
+        int[] offsets = new int[n + 1];
+        int[] upperOffsets = new int[n];
+        for (int v = 0; v < n; ++v) {
+            offsets[v + 1] = offsets[v] + counter.degrees[v];
+            upperOffsets[v] = offsets[v] + counter.lowerDegrees[v];
+        }
+
+        long destinationsBegin = HEADER_SIZE / 4 + 2L * n + 1;
+        try (FileChannel channel = FileChannel.open(output.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            IntBuffer[] file = MappedCSRGraph.map(channel, FileChannel.MapMode.READ_WRITE,
+                    0, destinationsBegin + 2L * rawM);
+            long weightsBegin = destinationsBegin + rawM;
+            int[] lowerEnds = upperOffsets.clone();
+            int[] upperEnds = Arrays.copyOfRange(offsets, 1, n + 1);
+            try (GZIPInputStream stream = new GZIPInputStream(new FileInputStream(input))) {
+                GraphFromCSV.readEdges(stream, (source, destination, weight) -> {
+                    int v1 = Math.min(source, destination);
+                    int v2 = Math.max(source, destination);
+                    int i1 = --upperEnds[v1];
+                    put(file, destinationsBegin + i1, v2);
+                    put(file, weightsBegin + i1, weight);
+                    int i2 = --lowerEnds[v2];
+                    put(file, destinationsBegin + i2, v1);
+                    put(file, weightsBegin + i2, weight);
+                });
+            }
+
+            // Merge the parallel edges like GraphBuilder, keeping the first edge end to each neighbour in each row
+            int[] lastRow = lowerEnds, positions = upperEnds;
+            Arrays.fill(lastRow, -1);
+            int size = 0;
+            for (int v = 0; v < n; ++v) {
+                int rowBegin = offsets[v];
+                int upperBegin = upperOffsets[v];
+                int rowEnd = offsets[v + 1];
+                offsets[v] = size;
+                for (int e = rowBegin; e < rowEnd; ++e) {
+                    if (e == upperBegin) {
+                        upperOffsets[v] = size;
+                    }
+                    int u = get(file, destinationsBegin + e);
+                    int w = get(file, weightsBegin + e);
+                    if (lastRow[u] == v) {
+                        long sum = (long) get(file, weightsBegin + positions[u]) + w;
+                        if (sum != (int) sum) {
+                            throw new IllegalArgumentException("The merged weight between " + v + " and " + u
+                                    + " does not fit into int");
+                        }
+                        put(file, weightsBegin + positions[u], (int) sum);
+                    } else {
+                        lastRow[u] = v;
+                        positions[u] = size;
+                        put(file, destinationsBegin + size, u);
+                        put(file, weightsBegin + size, w);
+                        ++size;
+                    }
+                }
+                if (upperBegin == rowEnd) {
+                    upperOffsets[v] = size;
+                }
+            }
+            offsets[n] = size;
+
+            // The weights move closer to the destinations, which is safe to do from the beginning
+            int m = size;
+            for (int e = 0; e < m; ++e) {
+                put(file, destinationsBegin + m + e, get(file, weightsBegin + e));
+            }
+            put(file, 0, MAGIC);
+            put(file, 1, VERSION);
+            put(file, 2, n);
+            put(file, 3, m);
+            for (int v = 0; v <= n; ++v) {
+                put(file, HEADER_SIZE / 4 + v, offsets[v]);
+            }
+            for (int v = 0; v < n; ++v) {
+                put(file, HEADER_SIZE / 4 + n + 1 + v, upperOffsets[v]);
+            }
+            channel.truncate(4 * (destinationsBegin + 2L * m));
+        }
+    }
+
+    private static int get(IntBuffer[] chunks, long index) {
+        return chunks[(int) (index >>> MappedCSRGraph.CHUNK_SHIFT)].get((int) (index & MappedCSRGraph.CHUNK_MASK));
+    }
+
+    private static void put(IntBuffer[] chunks, long index, int value) {
+        chunks[(int) (index >>> MappedCSRGraph.CHUNK_SHIFT)].put((int) (index & MappedCSRGraph.CHUNK_MASK), value);
+    }
+
+    // Counts the neighbours of every vertex, and the lower ones separately, growing the arrays as needed
+    private static final class DegreeCounter implements GraphFromCSV.EdgeConsumer {
+        private int[] degrees = new int[16], lowerDegrees = new int[16];
+        private int nVertices;
+        private long nEdges;
+
+        @Override
+        public void accept(int source, int destination, int weight) {
+            if (source == destination) {
+                throw new IllegalArgumentException("Vertex numbers coincide");
+            }
+            if (source < 0 || destination < 0) {
+                throw new IllegalArgumentException("Vertex number(s) are negative");
+            }
+            if (2 * ++nEdges > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The graph has too many edges for the binary CSR format");
+            }
+            int vMax = Math.max(source, destination);
+            if (vMax >= degrees.length) {
+                int newLength = (int) Math.min(Integer.MAX_VALUE, Math.max(vMax + 1L, 2L * degrees.length));
+                degrees = Arrays.copyOf(degrees, newLength);
+                lowerDegrees = Arrays.copyOf(lowerDegrees, newLength);
+            }
+            nVertices = Math.max(nVertices, vMax + 1);
+            ++degrees[source];
+            ++degrees[destination];
+            ++lowerDegrees[vMax];
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: <input.csv.gz> <output.csr>, converts a gzipped CSV graph to the binary CSR format");
+            System.exit(1);
+        }
+        convertGZippedCSV(new File(args[0]), new File(args[1]));
+    }
+}
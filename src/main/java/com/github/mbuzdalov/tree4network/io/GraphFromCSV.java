@@ -11,18 +11,27 @@ public final class GraphFromCSV {
     private GraphFromCSV() {}
 
     public static Graph fromInputStream(InputStream input) throws IOException {
+        GraphBuilder builder = new GraphBuilder().setMergeParallelEdges(true);
+        readEdges(input, builder::addEdge);
+        return builder.result();
+    }
+
+    interface EdgeConsumer {
+        void accept(int source, int destination, int weight) throws IOException;
+    }
+
+    // Passes the edges to the consumer in the order they are listed, without storing them
+    static void readEdges(InputStream input, EdgeConsumer consumer) throws IOException {
         try (BufferedReader in = new BufferedReader(new InputStreamReader(input))) {
             if (in.readLine().equals("src,dst,weight")) {
-                GraphBuilder builder = new GraphBuilder();
                 String line;
                 while ((line = in.readLine()) != null) {
                     StringTokenizer st = new StringTokenizer(line, ",");
                     int src = Integer.parseInt(st.nextToken());
                     int dst = Integer.parseInt(st.nextToken());
                     int weight = Integer.parseInt(st.nextToken());
-                    builder.addEdge(src, dst, weight);
+                    consumer.accept(src, dst, weight);
                 }
-                return builder.result();
             } else {
                 throw new IllegalArgumentException("The input does not contain a valid graph description");
             }
@@ -0,0 +1,110 @@
+package com.github.mbuzdalov.tree4network.io;
+
+import com.github.mbuzdalov.tree4network.Graph;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>A graph in the compressed sparse row format which is read directly from a memory-mapped file,
+ * see {@link BinaryCSR} for the file format.</p>
+ * <p>The arrays are not copied to the heap, so the graph object itself takes almost no heap memory regardless
+ * of its size, and several processes that map the same file share the same pages of the operating system's
+ * page cache. This does not extend to its consumers: the BST algorithms copy the graphs dense enough
+ * for a matrix into a {@link com.github.mbuzdalov.tree4network.DenseGraph}, and the other algorithms allocate
+ * their own structures, some of which, such as the edge array of
+ * {@link com.github.mbuzdalov.tree4network.algo.BestMSTOverEdgeShuffle}, take {@code O(m)} memory.</p>
+ * <p>Since a single mapping cannot exceed two gigabytes, each array is mapped in chunks.</p>
+ */
+public final class MappedCSRGraph extends Graph {
+    // Each chunk has 2^28 ints, which is one gigabyte
+    static final int CHUNK_SHIFT = 28;
+    static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private final int nVertices;
+    private final int nEdgeEnds;
+    private final IntBuffer[] offsets, upperOffsets, destinations, weights;
+
+    MappedCSRGraph(FileChannel channel, long position, int nVertices, int nEdgeEnds) throws IOException {
+        this.nVertices = nVertices;
+        this.nEdgeEnds = nEdgeEnds;
+        FileChannel.MapMode mode = FileChannel.MapMode.READ_ONLY;
+        offsets = map(channel, mode, position, nVertices + 1);
+        position += 4L * (nVertices + 1);
+        upperOffsets = map(channel, mode, position, nVertices);
+        position += 4L * nVertices;
+        destinations = map(channel, mode, position, nEdgeEnds);
+        position += 4L * nEdgeEnds;
+        weights = map(channel, mode, position, nEdgeEnds);
+    }
+
+    // Maps the given number of ints starting at the given position in chunks of 2^CHUNK_SHIFT ints
+    static IntBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long position, long length)
+            throws IOException {
+        IntBuffer[] result = new IntBuffer[Math.max(1, (int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT))];
+        for (int i = 0; i < result.length; ++i) {
+            long chunkBegin = (long) (i) << CHUNK_SHIFT;
+            long chunkLength = Math.min(length - chunkBegin, 1L << CHUNK_SHIFT);
+            result[i] = channel.map(mode, position + 4 * chunkBegin, 4 * chunkLength)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asIntBuffer();
+        }
+        return result;
+    }
+
+    private static int get(IntBuffer[] chunks, int index) {
+        return chunks[index >>> CHUNK_SHIFT].get(index & CHUNK_MASK);
+    }
+
+    @Override
+    public int nVertices() {
+        return nVertices;
+    }
+
+    @Override
+    public int nEdges() {
+        return nEdgeEnds >>> 1;
+    }
+
+    @Override
+    public int degree(int vertex) {
+        return get(offsets, vertex + 1) - get(offsets, vertex);
+    }
+
+    @Override
+    public int getDestination(int source, int index) {
+        return get(destinations, get(offsets, source) + index);
+    }
+
+    @Override
+    public int getWeight(int source, int index) {
+        return get(weights, get(offsets, source) + index);
+    }
+
+    @Override
+    public int edgesBegin(int vertex) {
+        return get(offsets, vertex);
+    }
+
+    @Override
+    public int upperEdgesBegin(int vertex) {
+        return get(upperOffsets, vertex);
+    }
+
+    @Override
+    public int edgesEnd(int vertex) {
+        return get(offsets, vertex + 1);
+    }
+
+    @Override
+    public int destinationAt(int edge) {
+        return get(destinations, edge);
+    }
+
+    @Override
+    public int weightAt(int edge) {
+        return get(weights, edge);
+    }
+}
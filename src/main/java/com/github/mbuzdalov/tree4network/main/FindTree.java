@@ -2,6 +2,8 @@ package com.github.mbuzdalov.tree4network.main;
 
 import com.github.mbuzdalov.tree4network.Graph;
 import com.github.mbuzdalov.tree4network.algo.*;
+import com.github.mbuzdalov.tree4network.cost.CostStatistics;
+import com.github.mbuzdalov.tree4network.io.BinaryCSR;
 import com.github.mbuzdalov.tree4network.io.GraphFromCSV;
 import com.github.mbuzdalov.tree4network.util.Timer;
 
@@ -12,7 +14,6 @@ import java.io.PrintWriter;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
-import java.util.Optional;
 import java.util.random.RandomGenerator;
 import java.util.random.RandomGeneratorFactory;
 
@@ -55,13 +56,17 @@ public final class FindTree {
             } else {
                 System.out.println("interrupted");
             }
+            // only non-empty if the cost computations are instrumented
+            for (CostStatistics statistics : CostStatistics.all()) {
+                System.out.println("  " + statistics);
+            }
         }
     }
 
     private static void usage() {
         System.err.println("Usage: <algo> <file> <maxDegree> <runID> <timeout> <fitness-log>, where:");
         System.err.println("  <algo>         the name of the algorithm to run");
-        System.err.println("  <file>         the dataset to run the algorithm on");
+        System.err.println("  <file>         the dataset to run the algorithm on, either .csv.gz or .csr");
         System.err.println("  <maxDegree>    the maximum degree of a vertex in the answer (should be at least 2)");
         System.err.println("  <runID>        a string that gets logged verbatim to indicate the run");
         System.err.println("  <timeout>      the maximum runtime, in seconds");
@@ -73,28 +78,35 @@ public final class FindTree {
             System.err.print(algorithms.get(i).name());
         }
         System.err.println();
+        System.err.println("The names may be prefixed by modifiers: ");
+        System.err.println("  relabel:       renumbers the vertices to improve memory locality");
+        System.err.println("  sparse=<c>:    keeps only the heaviest demands covering the fraction <c> of the total weight");
+        System.err.println("  multilevel=<n>: solves the graph coarsened to at most <n> vertices and refines the tree back");
         System.exit(1);
     }
 
     private static NamedBestTreeAlgorithm getAlgorithm(String algoName) {
-        Optional<NamedBestTreeAlgorithm> maybeAlgo = NamedBestTreeAlgorithm.algorithms()
-                .stream()
-                .filter(a -> a.name().equals(algoName))
-                .findFirst();
-        if (maybeAlgo.isEmpty()) {
+        try {
+            return NamedBestTreeAlgorithm.byName(algoName);
+        } catch (IllegalArgumentException ex) {
             System.err.println("Error: unknown algorithm '" + algoName + "'");
             usage();
             throw new IllegalStateException("System.exit(1) failed");
         }
-        return maybeAlgo.get();
     }
 
     private static NamedGraph getGraph(String filename) {
         try {
             File file = new File(filename);
-            Graph g = GraphFromCSV.fromGZippedFile(file);
             String name = file.getName();
-            name = name.substring(0, name.indexOf(".csv.gz"));
+            Graph g;
+            if (name.endsWith(".csr")) {
+                g = BinaryCSR.map(file);
+                name = name.substring(0, name.length() - ".csr".length());
+            } else {
+                g = GraphFromCSV.fromGZippedFile(file);
+                name = name.substring(0, name.indexOf(".csv.gz"));
+            }
             return new NamedGraph(name, g);
         } catch (Throwable th) {
             System.err.println("Error: cannot read graph '" + filename + "'");
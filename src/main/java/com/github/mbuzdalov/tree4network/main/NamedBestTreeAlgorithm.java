@@ -9,6 +9,11 @@ import com.github.mbuzdalov.tree4network.xover.RandomEdgeSubsetCrossover;
 import java.util.List;
 
 public record NamedBestTreeAlgorithm(String name, BestTreeAlgorithm algorithm) {
+    private static final String RELABEL_PREFIX = "relabel:";
+    private static final String SPARSE_PREFIX = "sparse=";
+    private static final String MULTILEVEL_PREFIX = "multilevel=";
+    private static final long MULTILEVEL_LEVEL_TIME_LIMIT_MILLIS = 1000;
+
     private static final List<NamedBestTreeAlgorithm> algorithms = List.of(
             new NamedBestTreeAlgorithm("MST", new BestMSTOverEdgeShuffle()),
             new NamedBestTreeAlgorithm("BST/rand", new BestBSTOverRandomPermutations()),
@@ -60,7 +65,48 @@ public record NamedBestTreeAlgorithm(String name, BestTreeAlgorithm algorithm) {
         return algorithms;
     }
 
+    /**
+     * <p>Finds the algorithm by its name, which is one of the names from {@link #algorithms()},
+     * optionally prefixed by the modifiers:</p>
+     * <ul>
+     *     <li>{@code relabel:} renumbers the vertices for better locality, see {@link RelabeledBestTreeAlgorithm}.</li>
+     *     <li>{@code sparse=<coverage>:} keeps only the heaviest demands which cover the given fraction
+     *     of the total weight, see {@link SparsifiedBestTreeAlgorithm}.</li>
+     *     <li>{@code multilevel=<size>:} coarsens the graph until it has at most the given number of vertices,
+     *     runs the algorithm on the coarsest graph, and refines the tree with the edge switch mutation
+     *     on the way back, see {@link MultilevelBestTreeAlgorithm}.</li>
+     * </ul>
+     *
+     * @param name the name of the algorithm.
+     * @return the algorithm with the given name.
+     */
     public static NamedBestTreeAlgorithm byName(String name) {
+        if (name.startsWith(RELABEL_PREFIX)) {
+            BestTreeAlgorithm inner = byName(name.substring(RELABEL_PREFIX.length())).algorithm;
+            return new NamedBestTreeAlgorithm(name, new RelabeledBestTreeAlgorithm(inner));
+        }
+        int colon = name.indexOf(':');
+        if (name.startsWith(SPARSE_PREFIX) && colon > 0) {
+            double coverage;
+            try {
+                coverage = Double.parseDouble(name.substring(SPARSE_PREFIX.length(), colon));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Cannot parse coverage in algorithm name: '" + name + "'", ex);
+            }
+            BestTreeAlgorithm inner = byName(name.substring(colon + 1)).algorithm;
+            return new NamedBestTreeAlgorithm(name, new SparsifiedBestTreeAlgorithm(inner, coverage));
+        }
+        if (name.startsWith(MULTILEVEL_PREFIX) && colon > 0) {
+            int coarsestSize;
+            try {
+                coarsestSize = Integer.parseInt(name.substring(MULTILEVEL_PREFIX.length(), colon));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Cannot parse coarsest size in algorithm name: '" + name + "'", ex);
+            }
+            BestTreeAlgorithm inner = byName(name.substring(colon + 1)).algorithm;
+            return new NamedBestTreeAlgorithm(name, new MultilevelBestTreeAlgorithm<>(inner,
+                    EdgeSwitchMutation.getInstance(), coarsestSize, MULTILEVEL_LEVEL_TIME_LIMIT_MILLIS));
+        }
         for (NamedBestTreeAlgorithm algo : algorithms) {
             if (algo.name.equals(name)) {
                 return algo;
@@ -58,7 +58,7 @@ public final class EdgeOptimalRelinkMutation implements Mutation<EdgeOptimalReli
         int newV2 = bestEdge.v2();
         tree.addEdge(newV1, newV2);
         if (v1 != newV1 || v2 != newV2) {
-            long cost = costAlgo.compute(context.weights, tree);
+            long cost = result.cost() + costAlgo.computeRelinkDelta(context.weights, result.tree(), v1, v2, newV1, newV2);
             if (cost > result.cost()) {
                 throw new AssertionError("Relink does not work optimally: existing cost " + result.cost() + ", new cost " + cost);
             }
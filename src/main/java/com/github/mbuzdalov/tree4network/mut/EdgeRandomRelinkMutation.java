@@ -63,7 +63,7 @@ public final class EdgeRandomRelinkMutation implements Mutation<EdgeRandomRelink
         } while (newV1 == v1 && newV2 == v2);
 
         tree.addEdge(newV1, newV2);
-        long cost = costAlgo.compute(context.weights, tree);
+        long cost = result.cost() + costAlgo.computeRelinkDelta(context.weights, result.tree(), v1, v2, newV1, newV2);
         return new BestTreeAlgorithm.Result(cost, tree);
     }
 
@@ -92,11 +92,11 @@ public final class EdgeSwitchMutation implements Mutation<EdgeSwitchMutation.Con
 
         long newCost = result.cost();
         Graph weights = context.weights;
-        int wDeg1 = weights.degree(v1);
-        for (int i = 0; i < wDeg1; ++i) {
-            int u1 = weights.getDestination(v1, i);
+        int v1EdgesEnd = weights.edgesEnd(v1);
+        for (int edge = weights.edgesBegin(v1); edge < v1EdgesEnd; ++edge) {
+            int u1 = weights.destinationAt(edge);
             if (u1 != v2) {
-                int w = weights.getWeight(v1, i);
+                int w = weights.weightAt(edge);
                 if (context.isMarked(u1)) {
                     newCost += w;
                 } else {
@@ -104,11 +104,11 @@ public final class EdgeSwitchMutation implements Mutation<EdgeSwitchMutation.Con
                 }
             }
         }
-        int wDeg2 = weights.degree(v2);
-        for (int i = 0; i < wDeg2; ++i) {
-            int u2 = weights.getDestination(v2, i);
+        int v2EdgesEnd = weights.edgesEnd(v2);
+        for (int edge = weights.edgesBegin(v2); edge < v2EdgesEnd; ++edge) {
+            int u2 = weights.destinationAt(edge);
             if (u2 != v1) {
-                int w = weights.getWeight(v2, i);
+                int w = weights.weightAt(edge);
                 if (context.isMarked(u2)) {
                     newCost -= w;
                 } else {
@@ -128,34 +128,38 @@ public final class EdgeSwitchMutation implements Mutation<EdgeSwitchMutation.Con
             mutations = new int[n - 1];
             Combinatorics.fillIdentityPermutation(mutations);
             visited = new boolean[n];
+            stack = new int[n];
         }
 
         private final Graph weights;
         private final int[] mutations;
         private final boolean[] visited;
+        private final int[] stack;
         private int used;
 
+        // The search is iterative, as the trees may be as deep as they are large
         private void markReachable(BoundedSimpleGraph tree, int v) {
             Arrays.fill(visited, false);
             visited[v] = true;
-            dfs(tree, v);
+            stack[0] = v;
+            int stackSize = 1;
+            while (stackSize > 0) {
+                int curr = stack[--stackSize];
+                int nAdj = tree.degree(curr);
+                for (int i = 0; i < nAdj; ++i) {
+                    int next = tree.getDestination(curr, i);
+                    if (!visited[next]) {
+                        visited[next] = true;
+                        stack[stackSize++] = next;
+                    }
+                }
+            }
         }
 
         private boolean isMarked(int v) {
             return visited[v];
         }
 
-        private void dfs(BoundedSimpleGraph tree, int v) {
-            int nAdj = tree.degree(v);
-            for (int i = 0; i < nAdj; ++i) {
-                int next = tree.getDestination(v, i);
-                if (!visited[next]) {
-                    visited[next] = true;
-                    dfs(tree, next);
-                }
-            }
-        }
-
         private int getMutation(RandomGenerator random) {
             int firstUsed = mutations.length - used;
             if (firstUsed == 0) {
@@ -55,7 +55,7 @@ public final class RandomBSTTraversalMutation implements Mutation<RandomBSTTrave
             if (maxDegree != 3) {
                 throw new IllegalArgumentException("This operator is not supported for maxDegree = " + maxDegree);
             }
-            this.weights = weights;
+            this.weights = BestBSTOverPermutation.wrapIfDense(weights);
             int n = weights.nVertices();
             bst = new BestBSTOverPermutation(n);
             permutation = new int[n];
@@ -51,7 +51,8 @@ public final class SubtreeSwapMutation implements Mutation<SubtreeSwapMutation.C
         }
 
         swapSubtrees(tree, mutation.v1(), mutation.v2());
-        return new BestTreeAlgorithm.Result(costAlgo.compute(context.weights, tree), tree);
+        // if the new tree is worse, its exact cost is not needed
+        return new BestTreeAlgorithm.Result(costAlgo.compute(context.weights, tree, result.cost()), tree);
     }
 
     private static void swapSubtrees(BoundedSimpleGraph tree, int v1, int v2) {
@@ -0,0 +1,65 @@
+package com.github.mbuzdalov.tree4network.rmq;
+
+/**
+ * <p>A sparse table for range minimum queries, which is stored in a single array.</p>
+ * <p>Unlike {@link LinLogSpaceRMQ}, every entry holds both the minimum value and its index,
+ * packed into a long as {@code (value << 32) | index}, so that comparing the packed entries
+ * compares the values first and then the indices. The levels follow each other in the same array,
+ * and the offset of each level is computed rather than loaded. As a result, a query reads just
+ * two entries of the table and takes the minimum, with no dependent reads of the values.</p>
+ * <p>This takes twice as much memory as {@link LinLogSpaceRMQ}, as well as one more level for the values.</p>
+ */
+public final class FlatSparseTableRMQ extends RangeMinimumQuery {
+    private final long[] table;
+    private final int levelStride;
+
+    public FlatSparseTableRMQ(int[] values) {
+        super(values);
+        int capacity = values.length;
+        int nLevels = 32 - Integer.numberOfLeadingZeros(capacity);
+        this.levelStride = capacity + 1;
+        this.table = new long[Math.max(0, levelOffset(nLevels))];
+    }
+
+    // Level k holds (capacity - 2^k + 1) entries, these are laid out one after another
+    private int levelOffset(int level) {
+        return level * levelStride - (1 << level) + 1;
+    }
+
+    @Override
+    public void reloadArray(int size) {
+        reloadRange(0, size, size);
+    }
+
+    @Override
+    public void reloadRange(int from, int until, int size) {
+        long[] table = this.table;
+        for (int i = from; i < until; ++i) {
+            table[i] = ((long) (values[i]) << 32) | i;
+        }
+        // At each level, only the entries whose windows intersect the changed range are recomputed
+        for (int level = 1, half = 1; 2 * half <= size; ++level, half *= 2) {
+            int prev = levelOffset(level - 1);
+            int curr = levelOffset(level);
+            for (int i = Math.max(0, from - 2 * half + 1), last = Math.min(size - 2 * half, until - 1); i <= last; ++i) {
+                table[curr + i] = Math.min(table[prev + i], table[prev + i + half]);
+            }
+        }
+    }
+
+    @Override
+    public int minimumIndex(int from, int until) {
+        return (int) (minimumEntry(from, until));
+    }
+
+    @Override
+    public int minimumValue(int from, int until) {
+        return (int) (minimumEntry(from, until) >> 32);
+    }
+
+    private long minimumEntry(int from, int until) {
+        int level = 31 - Integer.numberOfLeadingZeros(until - from);
+        int offset = levelOffset(level);
+        return Math.min(table[offset + from], table[offset + until - (1 << level)]);
+    }
+}
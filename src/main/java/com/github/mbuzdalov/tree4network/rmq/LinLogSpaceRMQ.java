@@ -1,10 +1,9 @@
 package com.github.mbuzdalov.tree4network.rmq;
 
 public final class LinLogSpaceRMQ extends RangeMinimumQuery {
-    private final int[] values;
     private final int[][] data;
     public LinLogSpaceRMQ(int[] values) {
-        this.values = values;
+        super(values);
         int logSize = 0;
         while ((1 << logSize) <= values.length) {
             ++logSize;
@@ -18,16 +17,23 @@ public final class LinLogSpaceRMQ extends RangeMinimumQuery {
 
     @Override
     public void reloadArray(int n) {
+        reloadRange(0, n, n);
+    }
+
+    @Override
+    public void reloadRange(int from, int until, int size) {
+        // At each level, only the entries whose windows intersect the changed range are recomputed
         if (data.length > 0) {
             int[] d0 = data[0];
-            for (int i = 0; i < d0.length; ++i) {
+            for (int i = Math.max(0, from - 1), last = Math.min(size - 2, until - 1); i <= last; ++i) {
                 d0[i] = values[i] <= values[i + 1] ? i : i + 1;
             }
             for (int d = 1; d < data.length; ++d) {
                 int[] curr = data[d];
                 int[] prev = data[d - 1];
                 int offset = 1 << d;
-                for (int i = 0; i < curr.length; ++i) {
+                int window = 2 * offset;
+                for (int i = Math.max(0, from - window + 1), last = Math.min(size - window, until - 1); i <= last; ++i) {
                     int lq = prev[i];
                     int rq = prev[i + offset];
                     curr[i] = values[lq] < values[rq] ? lq : rq;
@@ -1,16 +1,26 @@
 package com.github.mbuzdalov.tree4network.rmq;
 
+/**
+ * <p>Range minimum queries in linear space and constant time for arrays where the adjacent values
+ * differ by exactly one, such as the depths along an Euler tour of a tree.</p>
+ * <p>The array is split into blocks of logarithmic size. Each block is encoded by the directions of its steps,
+ * and the minima for all possible encodings are precomputed, so both the minimum of a block and the minimum
+ * of any range within a block are found with a single table lookup. The minima of the blocks are then
+ * processed by a {@link FlatSparseTableRMQ}, which is only O(n / log n) in size.</p>
+ * <p>The results are undefined if the adjacent values of the array do not differ by exactly one.</p>
+ */
 public final class LinSpaceIncrementalRMQ extends RangeMinimumQuery {
-    private final int[] values;
+    // PRECOMPUTED[i] describes solutions for all blocks of size 2 + i, these are shared by all instances
+    private static final int[][] PRECOMPUTED = new int[31][];
+
     private final int blockSize;
     private final int[][] blockPrecomputed;
     private final int[] blockMinValues, blockMinIndices;
     private final int[] blockBitStrings;
-    private final int[] blockPrefixes, blockSuffixes;
-    private final LinLogSpaceRMQ blockRMQ;
+    private final FlatSparseTableRMQ blockRMQ;
 
     public LinSpaceIncrementalRMQ(int[] values) {
-        this.values = values;
+        super(values);
         int logSize = 1;
         while ((1 << logSize) <= values.length) {
             ++logSize;
@@ -20,17 +30,12 @@ public final class LinSpaceIncrementalRMQ extends RangeMinimumQuery {
         blockMinValues = new int[nBlocks];
         blockMinIndices = new int[nBlocks];
         blockBitStrings = new int[nBlocks];
-        blockRMQ = new LinLogSpaceRMQ(blockMinValues);
-
-        blockPrefixes = new int[values.length];
-        blockSuffixes = new int[values.length];
+        blockRMQ = new FlatSparseTableRMQ(blockMinValues);
 
-        // blockPrecomputed[i] describes solutions for all blocks of size 2 + i
-        blockPrecomputed = new int[blockSize - 1][];
-        precomputeBlocks();
+        blockPrecomputed = precomputedBlocks(blockSize);
     }
 
-    private int precomputeOne(int str, int bs) {
+    private static int precomputeOne(int str, int bs) {
         int curr = 0;
         int best = 0;
         int bestI = 0;
@@ -45,60 +50,68 @@ public final class LinSpaceIncrementalRMQ extends RangeMinimumQuery {
         return bestI;
     }
 
-    private void precomputeBlocks() {
-        for (int bsi = 0; bsi < blockPrecomputed.length; ++bsi) {
-            int bs = 1 + bsi;
-            int[] bp = blockPrecomputed[bsi] = new int[1 << bs];
-            for (int str = 0; str < bp.length; ++str) {
-                bp[str] = precomputeOne(str, bs);
+    private static synchronized int[][] precomputedBlocks(int blockSize) {
+        int[][] result = new int[blockSize - 1][];
+        for (int bsi = 0; bsi < result.length; ++bsi) {
+            if (PRECOMPUTED[bsi] == null) {
+                int bs = 1 + bsi;
+                int[] bp = new int[1 << bs];
+                for (int str = 0; str < bp.length; ++str) {
+                    bp[str] = precomputeOne(str, bs);
+                }
+                PRECOMPUTED[bsi] = bp;
             }
+            result[bsi] = PRECOMPUTED[bsi];
         }
+        return result;
     }
 
     @Override
     public void reloadArray(int n) {
-        // Iterate over blocks, process each block separately
-        int nBlocks = (n + blockSize - 1) / blockSize;
-        for (int block = 0; block < nBlocks; ++block) {
-            int blockBegin = block * blockSize;
-            int blockEnd = Math.min(blockBegin + blockSize, n);
+        reloadRange(0, n, n);
+    }
 
-            int stringEncoding = 0;
-            int minValue = values[blockBegin];
-            int minIndex = blockBegin;
+    @Override
+    public void reloadRange(int from, int until, int size) {
+        // The blocks are encoded independently, so only the blocks containing the changed values are affected
+        int nBlocks = (size + blockSize - 1) / blockSize;
+        int fromBlock = from / blockSize;
+        int untilBlock = (until + blockSize - 1) / blockSize;
+        for (int block = fromBlock; block < untilBlock; ++block) {
+            reloadBlock(block, size);
+        }
+        blockRMQ.reloadRange(fromBlock, untilBlock, nBlocks);
+    }
 
-            blockPrefixes[blockBegin] = blockBegin;
-            for (int i = blockBegin + 1; i < blockEnd; ++i) {
-                int curr = values[i];
-                if (minValue > curr) {
-                    minValue = curr;
-                    minIndex = i;
-                }
-                blockPrefixes[i] = minIndex;
-                int prev = values[i - 1];
-                if (prev + 1 == curr) {
-                    stringEncoding |= 1 << (i - 1 - blockBegin);
-                }
-            }
+    private void reloadBlock(int block, int size) {
+        int blockBegin = block * blockSize;
+        int blockEnd = Math.min(blockBegin + blockSize, size);
 
-            blockMinIndices[block] = minIndex;
-            blockMinValues[block] = minValue;
-            blockBitStrings[block] = stringEncoding;
+        // The step is either -1 or +1, so (step + 1) / 2 is the bit to be set
+        int stringEncoding = 0;
+        int prev = values[blockBegin];
+        for (int i = blockBegin + 1; i < blockEnd; ++i) {
+            int curr = values[i];
+            stringEncoding |= ((curr - prev + 1) >>> 1) << (i - 1 - blockBegin);
+            prev = curr;
+        }
 
-            int sfIndex = blockEnd - 1;
-            int sfValue = values[sfIndex];
-            blockSuffixes[sfIndex] = sfIndex;
-            for (int i = sfIndex - 1; i >= blockBegin; --i) {
-                int curr = values[i];
-                if (sfValue > curr) {
-                    sfValue = curr;
-                    sfIndex = i;
-                }
-                blockSuffixes[i] = sfIndex;
-            }
+        int minIndex = blockEnd - blockBegin == 1
+                ? blockBegin
+                : blockBegin + blockPrecomputed[blockEnd - blockBegin - 2][stringEncoding];
+        blockMinIndices[block] = minIndex;
+        blockMinValues[block] = values[minIndex];
+        blockBitStrings[block] = stringEncoding;
+    }
+
+    // The minimum index in [from; to], both ends inclusive, which are in the same block
+    private int minimumIndexInBlock(int block, int from, int to) {
+        if (from == to) {
+            return from;
         }
-        // Reload the block RMQ
-        blockRMQ.reloadArray(nBlocks);
+        int mask = blockBitStrings[block] >>> (from - block * blockSize);
+        mask &= (1 << (to - from)) - 1;
+        return from + blockPrecomputed[to - from - 1][mask];
     }
 
     @Override
@@ -107,26 +120,21 @@ public final class LinSpaceIncrementalRMQ extends RangeMinimumQuery {
         int fromBlock = from / blockSize;
         int toBlock = to / blockSize;
         if (fromBlock == toBlock) {
-            if (from == to) {
-                return from;
-            }
-            int mask = blockBitStrings[fromBlock];
-            mask >>>= from - fromBlock * blockSize;
-            mask &= (1 << (to - from)) - 1;
-            return from + blockPrecomputed[to - from - 1][mask];
-        } else {
-            int fromIndex = blockSuffixes[from];
-            int toIndex = blockPrefixes[to];
-            int bestIndex = values[fromIndex] <= values[toIndex] ? fromIndex : toIndex;
-            if (fromBlock + 1 < toBlock) {
-                int midBlock = blockRMQ.minimumIndex(fromBlock + 1, toBlock);
-                int midBlockIndex = blockMinIndices[midBlock];
-                if (values[midBlockIndex] < values[bestIndex]) {
-                    bestIndex = midBlockIndex;
-                }
-            }
+            return minimumIndexInBlock(fromBlock, from, to);
+        }
 
-            return bestIndex;
+        // Ties are broken towards the leftmost index, same as within the blocks
+        int bestIndex = minimumIndexInBlock(fromBlock, from, fromBlock * blockSize + blockSize - 1);
+        int bestValue = values[bestIndex];
+        if (fromBlock + 1 < toBlock) {
+            int midBlock = blockRMQ.minimumIndex(fromBlock + 1, toBlock);
+            int midValue = blockMinValues[midBlock];
+            if (midValue < bestValue) {
+                bestValue = midValue;
+                bestIndex = blockMinIndices[midBlock];
+            }
         }
+        int toIndex = minimumIndexInBlock(toBlock, toBlock * blockSize, to);
+        return values[toIndex] < bestValue ? toIndex : bestIndex;
     }
 }
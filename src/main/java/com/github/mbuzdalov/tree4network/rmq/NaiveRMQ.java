@@ -1,21 +1,22 @@
 package com.github.mbuzdalov.tree4network.rmq;
 
 public final class NaiveRMQ extends RangeMinimumQuery {
-    private final int[] data;
-
     public NaiveRMQ(int[] underlyingArray) {
-        data = underlyingArray;
+        super(underlyingArray);
     }
 
     @Override
     public void reloadArray(int size) {}
 
+    @Override
+    public void reloadRange(int from, int until, int size) {}
+
     @Override
     public int minimumIndex(int from, int until) {
         int result = from;
-        int value = data[from];
+        int value = values[from];
         for (int i = from; ++i < until; ) {
-            int curr = data[i];
+            int curr = values[i];
             if (value > curr) {
                 value = curr;
                 result = i;
@@ -1,6 +1,29 @@
 package com.github.mbuzdalov.tree4network.rmq;
 
 public abstract class RangeMinimumQuery {
+    protected final int[] values;
+
+    protected RangeMinimumQuery(int[] values) {
+        this.values = values;
+    }
+
     public abstract void reloadArray(int size);
     public abstract int minimumIndex(int from, int until);
+
+    /**
+     * <p>Updates the structure after only the values in the range {@code [from; until)} have changed
+     * since the last reload, while the size of the array stayed the same.</p>
+     * <p>The default implementation reloads the entire array, the subclasses may update only the affected parts.</p>
+     *
+     * @param from the first changed index, inclusive.
+     * @param until the last changed index, exclusive.
+     * @param size the size of the array, which shall be the same as at the last reload.
+     */
+    public void reloadRange(int from, int until, int size) {
+        reloadArray(size);
+    }
+
+    public int minimumValue(int from, int until) {
+        return values[minimumIndex(from, until)];
+    }
 }
@@ -113,11 +113,11 @@ public final class Graphs {
         private void initializeSumWeights() {
             Arrays.fill(sumWeights, 0);
             for (int v1 = 0; v1 < weights.nVertices(); ++v1) {
-                int d1 = weights.degree(v1);
-                for (int i = 0; i < d1; ++i) {
-                    int v2 = weights.getDestination(v1, i);
+                int edgesEnd = weights.edgesEnd(v1);
+                for (int edge = weights.edgesBegin(v1); edge < edgesEnd; ++edge) {
+                    int v2 = weights.destinationAt(edge);
                     if (components[v1] != components[v2]) {
-                        int w = weights.getWeight(v1, i);
+                        int w = weights.weightAt(edge);
                         sumWeights[v1] += w;
                         sumWeights[v2] += w;
                     }
@@ -11,6 +11,24 @@ public abstract class Timer {
         };
     }
 
+    /**
+     * Creates a timer which starts now and interrupts either after the given time or when the parent timer does.
+     * The consumed time is reported by the parent timer, so that the logged times stay consistent.
+     *
+     * @param parent the parent timer.
+     * @param timeLimitMillis the time limit of the new timer.
+     * @return the new timer.
+     */
+    public static Timer newNestedTimer(Timer parent, long timeLimitMillis) {
+        long startTimeMillis = System.currentTimeMillis();
+        return new Timer() {
+            public boolean shouldInterrupt() {
+                return parent.shouldInterrupt() || System.currentTimeMillis() - startTimeMillis > timeLimitMillis;
+            }
+            public long timeConsumedMillis() { return parent.timeConsumedMillis(); }
+        };
+    }
+
     private static final Timer DUMMY = new Timer() {
         @Override public boolean shouldInterrupt() { return false; }
         @Override public long timeConsumedMillis() { return 0; }
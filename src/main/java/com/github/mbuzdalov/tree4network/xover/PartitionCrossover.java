@@ -42,7 +42,7 @@ public final class PartitionCrossover implements Crossover<PartitionCrossover.Co
         BoundedSimpleGraph graphA = resultA.tree();
         BoundedSimpleGraph graphB = resultB.tree();
         BoundedSimpleGraph common = new BoundedSimpleGraph(n, context.maximumDegree);
-        GraphBuilder xorBuilder = new GraphBuilder();
+        GraphBuilder xorBuilder = new GraphBuilder(2 * n);
         for (int v = 0; v < n; ++v) {
             int dA = graphA.degree(v);
             for (int e = 0; e < dA; ++e) {
@@ -72,6 +72,7 @@ public final class PartitionCrossover implements Crossover<PartitionCrossover.Co
         System.out.print("Common edges: " + common.nEdges() + ", xor edges: " + xor.nEdges() + ", xor components: " + nComponents + ":");
         if (nComponents > 1) {
             context.go(xor, common, 1, nComponents, timer);
+            context.evaluatePending();
         }
         ++context.nRuns;
         context.sumComponents += nComponents;
@@ -86,7 +87,11 @@ public final class PartitionCrossover implements Crossover<PartitionCrossover.Co
     }
 
     public static class Context {
+        private static final int BATCH_SIZE = 16;
+
         private final Graph weights;
+        private final BoundedSimpleGraph[] pending = new BoundedSimpleGraph[BATCH_SIZE];
+        private int nPending;
         private final int[] component;
         private BestTreeAlgorithm.Result bestResult;
         private long bestCrossoverCost = Long.MAX_VALUE;
@@ -141,17 +146,31 @@ public final class PartitionCrossover implements Crossover<PartitionCrossover.Co
             this.costAlgo = costAlgo;
         }
 
+        private void evaluatePending() {
+            BoundedSimpleGraph[] trees = nPending == BATCH_SIZE ? pending : Arrays.copyOf(pending, nPending);
+            long[] costs = costAlgo.computeBatch(weights, trees);
+            for (int i = 0; i < nPending; ++i) {
+                long cost = costs[i];
+                if (cost < bestResult.cost()) {
+                    bestCrossoverCost = cost;
+                    System.out.print(" [" + bestResult.cost() + " => " + cost + "]");
+                    bestResult = new BestTreeAlgorithm.Result(cost, new BoundedSimpleGraph(pending[i]));
+                }
+                pending[i] = null;
+            }
+            nPending = 0;
+        }
+
         private void go(Graph xor, BoundedSimpleGraph current, int nComp, int maxComp, Timer timer) {
             if (timer.shouldInterrupt()) {
                 return;
             }
             if (nComp > maxComp) {
                 if (current.nEdges() + 1 == current.nVertices()) {
-                    long cost = costAlgo.compute(weights, current);
-                    if (cost < bestResult.cost()) {
-                        bestCrossoverCost = cost;
-                        System.out.print(" [" + bestResult.cost() + " => " + cost + "]");
-                        bestResult = new BestTreeAlgorithm.Result(cost, new BoundedSimpleGraph(current));
+                    // the candidate trees are never modified afterwards, so they are evaluated in batches
+                    pending[nPending] = current;
+                    if (++nPending == BATCH_SIZE) {
+                        evaluatePending();
                     }
                 }
             } else {
@@ -0,0 +1,48 @@
+package com.github.mbuzdalov.tree4network;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class DenseGraphTests {
+    @Test
+    public void weightsMatchAdjacencyLists() {
+        Random random = new Random(6234523452L);
+        for (int run = 0; run < 10; ++run) {
+            int n = 2 + random.nextInt(50);
+            GraphBuilder builder = new GraphBuilder().setNumberOfVertices(n);
+            int[][] expected = new int[n][n];
+            for (int i = random.nextInt(n * n); i > 0; --i) {
+                int a = random.nextInt(n), b = random.nextInt(n);
+                if (a != b) {
+                    int w = 1 + random.nextInt(100);
+                    builder.addEdge(a, b, w);
+                    expected[a][b] += w;
+                    expected[b][a] += w;
+                }
+            }
+            Graph sparse = builder.result();
+            DenseGraph dense = new DenseGraph(sparse);
+            Assert.assertEquals(sparse.nEdges(), dense.nEdges());
+            for (int u = 0; u < n; ++u) {
+                Assert.assertEquals(sparse.degree(u), dense.degree(u));
+                for (int v = 0; v < n; ++v) {
+                    Assert.assertEquals(expected[u][v], dense.weight(u, v));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void densityThreshold() {
+        GraphBuilder builder = new GraphBuilder().setNumberOfVertices(8);
+        Assert.assertFalse(DenseGraph.isDenseEnough(builder.result()));
+        for (int i = 1; i < 7; ++i) {
+            builder.addEdge(0, i, 1);
+        }
+        Assert.assertFalse(DenseGraph.isDenseEnough(builder.result()));
+        builder.addEdge(0, 7, 1);
+        Assert.assertTrue(DenseGraph.isDenseEnough(builder.result()));
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.mbuzdalov.tree4network;
+
+import com.github.mbuzdalov.tree4network.cost.NaiveCostComputationAlgorithm;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class DynamicGraphTests {
+    private static int[][] matrix(Graph g) {
+        int n = g.nVertices();
+        int[][] result = new int[n][n];
+        for (int v = 0; v < n; ++v) {
+            Assert.assertEquals(g.upperEdgesBegin(v) - g.edgesBegin(v) + g.edgesEnd(v) - g.upperEdgesBegin(v),
+                    g.degree(v));
+            for (int e = g.edgesBegin(v), end = g.edgesEnd(v); e < end; ++e) {
+                Assert.assertEquals(e < g.upperEdgesBegin(v), g.destinationAt(e) < v);
+                result[v][g.destinationAt(e)] += g.weightAt(e);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void updatesMatchRebuiltGraphs() {
+        Random random = new Random(823452345L);
+        for (int run = 0; run < 20; ++run) {
+            int n = 2 + random.nextInt(30);
+            int[][] expected = new int[n][n];
+            GraphBuilder builder = new GraphBuilder().setNumberOfVertices(n);
+            for (int i = random.nextInt(3 * n); i > 0; --i) {
+                int a = random.nextInt(n), b = random.nextInt(n);
+                if (a != b && expected[a][b] == 0) {
+                    int w = 1 + random.nextInt(100);
+                    builder.addEdge(a, b, w);
+                    expected[a][b] = expected[b][a] = w;
+                }
+            }
+            DynamicGraph graph = new DynamicGraph(builder.result());
+            BoundedSimpleGraph tree = new BoundedSimpleGraph(n, n);
+            for (int v = 1; v < n; ++v) {
+                tree.addEdge(random.nextInt(v), v);
+            }
+            long cost = NaiveCostComputationAlgorithm.getInstance().compute(graph, tree);
+
+            for (int batch = 0; batch < 5; ++batch) {
+                for (int i = random.nextInt(2 * n); i > 0; --i) {
+                    int a = random.nextInt(n), b = random.nextInt(n);
+                    if (a != b) {
+                        int w = random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(100);
+                        graph.setWeight(a, b, w);
+                        expected[a][b] = expected[b][a] = w;
+                    }
+                }
+                Graph differences = graph.applyUpdates();
+                Assert.assertEquals(0, graph.nPendingUpdates());
+                int[][] actual = matrix(graph);
+                int nonZeroPairs = 0;
+                for (int v = 0; v < n; ++v) {
+                    Assert.assertArrayEquals(expected[v], actual[v]);
+                    for (int u = v + 1; u < n; ++u) {
+                        nonZeroPairs += expected[v][u] == 0 ? 0 : 1;
+                    }
+                }
+                Assert.assertEquals(nonZeroPairs, graph.nEdges());
+                cost += NaiveCostComputationAlgorithm.getInstance().compute(differences, tree);
+                Assert.assertEquals(NaiveCostComputationAlgorithm.getInstance().compute(graph, tree), cost);
+            }
+        }
+    }
+
+    @Test
+    public void zeroWeightEdgesAreRemoved() {
+        DynamicGraph graph = new DynamicGraph(new GraphBuilder()
+                .addEdge(0, 1, 5).addEdge(1, 2, 7).addEdge(2, 3, 0).addEdge(0, 3, 2)
+                .result());
+        Assert.assertEquals(3, graph.nEdges());
+        graph.setWeight(1, 0, 0);
+        graph.setWeight(2, 1, 3);
+        graph.applyUpdates();
+        Assert.assertEquals(2, graph.nEdges());
+        Assert.assertEquals(1, graph.degree(1));
+        for (int e = 0; e < 2 * graph.nEdges(); ++e) {
+            Assert.assertNotEquals(0, graph.weightAt(e));
+        }
+        Assert.assertEquals(3, graph.getWeight(1, 0));
+    }
+}
@@ -22,4 +22,98 @@ public class GraphBuilderTests {
         Assert.assertEquals(0, g.getDestination(1, 0));
         Assert.assertEquals(239, g.getWeight(1, 0));
     }
+
+    @Test
+    public void edgeIndicesMatchRows() {
+        Graph g = new GraphBuilder()
+                .addEdge(0, 1, 1).addEdge(0, 2, 2).addEdge(2, 3, 3).addEdge(1, 2, 4)
+                .setNumberOfVertices(6)
+                .result();
+
+        Assert.assertEquals(6, g.nVertices());
+        Assert.assertEquals(4, g.nEdges());
+        Assert.assertEquals(0, g.edgesBegin(0));
+        for (int v = 0; v < g.nVertices(); ++v) {
+            if (v > 0) {
+                Assert.assertEquals(g.edgesEnd(v - 1), g.edgesBegin(v));
+            }
+            Assert.assertEquals(g.degree(v), g.edgesEnd(v) - g.edgesBegin(v));
+            for (int i = 0; i < g.degree(v); ++i) {
+                Assert.assertEquals(g.getDestination(v, i), g.destinationAt(g.edgesBegin(v) + i));
+                Assert.assertEquals(g.getWeight(v, i), g.weightAt(g.edgesBegin(v) + i));
+            }
+        }
+        Assert.assertEquals(8, g.edgesEnd(5));
+    }
+
+    @Test
+    public void rowsAreInReverseOrderOfAddition() {
+        // Many edges of a single vertex, so the storage of a small builder has to grow
+        GraphBuilder builder = new GraphBuilder(1);
+        for (int i = 1; i <= 100; ++i) {
+            builder.addEdge(0, i, 1000 + i);
+        }
+        Graph g = builder.result();
+
+        Assert.assertEquals(101, g.nVertices());
+        Assert.assertEquals(100, g.nEdges());
+        Assert.assertEquals(100, g.degree(0));
+        for (int i = 0; i < 100; ++i) {
+            Assert.assertEquals(100 - i, g.getDestination(0, i));
+            Assert.assertEquals(1100 - i, g.getWeight(0, i));
+        }
+        for (int i = 1; i <= 100; ++i) {
+            Assert.assertEquals(1, g.degree(i));
+            Assert.assertEquals(0, g.getDestination(i, 0));
+            Assert.assertEquals(1000 + i, g.getWeight(i, 0));
+        }
+    }
+
+    @Test
+    public void upperEdgesVisitEachEdgeOnce() {
+        Graph g = new GraphBuilder()
+                .addEdge(2, 0, 1).addEdge(1, 2, 2).addEdge(3, 2, 3).addEdge(0, 3, 4)
+                .result();
+
+        int weightSum = 0;
+        for (int v = 0; v < g.nVertices(); ++v) {
+            for (int e = g.edgesBegin(v); e < g.upperEdgesBegin(v); ++e) {
+                Assert.assertTrue(g.destinationAt(e) < v);
+            }
+            for (int e = g.upperEdgesBegin(v); e < g.edgesEnd(v); ++e) {
+                Assert.assertTrue(g.destinationAt(e) > v);
+                weightSum += g.weightAt(e);
+            }
+        }
+        Assert.assertEquals(10, weightSum);
+    }
+
+    @Test
+    public void parallelEdgesAreMerged() {
+        Graph g = new GraphBuilder()
+                .addEdge(0, 1, 1).addEdge(1, 2, 2).addEdge(1, 0, 4).addEdge(0, 2, 8).addEdge(0, 1, 16)
+                .setMergeParallelEdges(true)
+                .result();
+
+        Assert.assertEquals(3, g.nVertices());
+        Assert.assertEquals(3, g.nEdges());
+        Assert.assertEquals(2, g.degree(0));
+        Assert.assertEquals(2, g.degree(1));
+        Assert.assertEquals(2, g.degree(2));
+        for (int v = 0; v < 3; ++v) {
+            for (int i = 0; i < 2; ++i) {
+                int u = g.getDestination(v, i);
+                int expected = v + u == 1 ? 21 : v + u == 2 ? 8 : 2;
+                Assert.assertEquals(expected, g.getWeight(v, i));
+            }
+            Assert.assertEquals(g.edgesBegin(v) + v, g.upperEdgesBegin(v));
+        }
+    }
+
+    @Test
+    public void parallelEdgesAreKeptByDefault() {
+        Graph g = new GraphBuilder().addEdge(0, 1, 1).addEdge(1, 0, 2).result();
+        Assert.assertEquals(2, g.nEdges());
+        Assert.assertEquals(2, g.degree(0));
+    }
 }
@@ -1,6 +1,7 @@
 package com.github.mbuzdalov.tree4network.algo;
 
 import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.DenseGraph;
 import com.github.mbuzdalov.tree4network.Graph;
 import com.github.mbuzdalov.tree4network.GraphBuilder;
 import com.github.mbuzdalov.tree4network.cost.NaiveCostComputationAlgorithm;
@@ -114,4 +115,37 @@ public class BSTTests {
             Assert.assertEquals(r1.cost(), r2.cost());
         } while ((minChanged = Combinatorics.nextPermutation(permutation)) >= 0);
     }
+
+    @Test
+    public void denseGraphGivesSameResults() {
+        int n = 30;
+        Random random = new Random(7345234523433L);
+        GraphBuilder gb = new GraphBuilder();
+        for (int i = 0; i < 300; ++i) {
+            int a = random.nextInt(n), b = random.nextInt(n);
+            if (a != b) {
+                gb.addEdge(a, b, random.nextInt(10000));
+            }
+        }
+        Graph sparse = gb.result();
+        Graph dense = new DenseGraph(sparse);
+
+        BestBSTOverPermutation solver = new BestBSTOverPermutation(n);
+        int[] permutation = new int[n];
+        for (int i = 0; i < n; ++i) {
+            permutation[i] = i;
+        }
+        for (int run = 0; run < 20; ++run) {
+            for (int i = 1; i < n; ++i) {
+                int j = random.nextInt(i + 1);
+                int tmp = permutation[i];
+                permutation[i] = permutation[j];
+                permutation[j] = tmp;
+            }
+            BestTreeAlgorithm.Result r1 = solver.construct(sparse, permutation, 0, Timer.dummyTimer());
+            BestTreeAlgorithm.Result r2 = solver.construct(dense, permutation, 0, Timer.dummyTimer());
+            Assert.assertEquals(r1.cost(), r2.cost());
+            Assert.assertEquals(r1.tree(), r2.tree());
+        }
+    }
 }
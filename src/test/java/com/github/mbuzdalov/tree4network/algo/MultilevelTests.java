@@ -0,0 +1,137 @@
+package com.github.mbuzdalov.tree4network.algo;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.GraphBuilder;
+import com.github.mbuzdalov.tree4network.cost.NaiveCostComputationAlgorithm;
+import com.github.mbuzdalov.tree4network.cost.TarjanCostComputationAlgorithm;
+import com.github.mbuzdalov.tree4network.mut.EdgeSwitchMutation;
+import com.github.mbuzdalov.tree4network.util.Combinatorics;
+import com.github.mbuzdalov.tree4network.util.DisjointSet;
+import com.github.mbuzdalov.tree4network.util.Timer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+public class MultilevelTests {
+    private static Graph randomGraph(int n, int nEdges, RandomGenerator random) {
+        GraphBuilder builder = new GraphBuilder().setNumberOfVertices(n);
+        for (int i = 0; i < nEdges; ++i) {
+            int a = random.nextInt(n), b = random.nextInt(n);
+            if (a != b) {
+                builder.addEdge(a, b, 1 + random.nextInt(1000));
+            }
+        }
+        return builder.result();
+    }
+
+    private static long totalWeight(Graph g) {
+        long result = 0;
+        for (int v = 0; v < g.nVertices(); ++v) {
+            for (int e = g.upperEdgesBegin(v), end = g.edgesEnd(v); e < end; ++e) {
+                result += g.weightAt(e);
+            }
+        }
+        return result;
+    }
+
+    private static void checkTree(BoundedSimpleGraph tree, int n, int maxDegree) {
+        Assert.assertEquals(n, tree.nVertices());
+        Assert.assertEquals(n - 1, tree.nEdges());
+        DisjointSet ds = new DisjointSet(n);
+        for (int v = 0; v < n; ++v) {
+            Assert.assertTrue(tree.degree(v) <= maxDegree);
+            for (int i = 0; i < tree.degree(v); ++i) {
+                ds.unite(v, tree.getDestination(v, i));
+            }
+        }
+        for (int v = 1; v < n; ++v) {
+            Assert.assertEquals(ds.get(0), ds.get(v));
+        }
+    }
+
+    @Test
+    public void coarseningKeepsDemandsBetweenPairs() {
+        RandomGenerator random = RandomGeneratorFactory.of("L32X64MixRandom").create(923452);
+        for (int run = 0; run < 20; ++run) {
+            int n = 2 + random.nextInt(100);
+            Graph g = randomGraph(n, random.nextInt(3 * n), random);
+            int[] map = new int[n];
+            int nCoarse = MultilevelBestTreeAlgorithm.heavyEdgeMatching(g, map, random);
+            int[] sizes = new int[nCoarse];
+            for (int v = 0; v < n; ++v) {
+                ++sizes[map[v]];
+            }
+            long internalWeight = 0;
+            for (int v = 0; v < n; ++v) {
+                Assert.assertTrue(sizes[map[v]] <= 2);
+                for (int e = g.upperEdgesBegin(v), end = g.edgesEnd(v); e < end; ++e) {
+                    if (map[v] == map[g.destinationAt(e)]) {
+                        internalWeight += g.weightAt(e);
+                    }
+                }
+            }
+            Graph coarse = MultilevelBestTreeAlgorithm.coarsen(g, map, nCoarse);
+            Assert.assertEquals(nCoarse, coarse.nVertices());
+            Assert.assertEquals(totalWeight(g) - internalWeight, totalWeight(coarse));
+        }
+    }
+
+    @Test
+    public void starLeavesAreMatched() {
+        int n = 101;
+        GraphBuilder builder = new GraphBuilder();
+        for (int v = 1; v < n; ++v) {
+            builder.addEdge(0, v, v);
+        }
+        int[] map = new int[n];
+        RandomGenerator random = RandomGeneratorFactory.of("L32X64MixRandom").create(2345);
+        Assert.assertEquals(51, MultilevelBestTreeAlgorithm.heavyEdgeMatching(builder.result(), map, random));
+    }
+
+    @Test
+    public void resultsAreValidTrees() {
+        RandomGenerator random = RandomGeneratorFactory.of("L32X64MixRandom").create(72345);
+        int n = 500;
+        Graph g = randomGraph(n, 3000, random);
+        for (int maxDegree = 2; maxDegree <= 4; ++maxDegree) {
+            BestTreeAlgorithm algorithm = new MultilevelBestTreeAlgorithm<>(
+                    new BestMSTOverEdgeShuffle(), EdgeSwitchMutation.getInstance(), 20, 50);
+            Timer timer = Timer.newFixedTimer(System.currentTimeMillis(), 500);
+            BestTreeAlgorithm.Result result = algorithm.solve(g, maxDegree, timer, random, (t, c) -> {}).result();
+            checkTree(result.tree(), n, maxDegree);
+            Assert.assertEquals(NaiveCostComputationAlgorithm.getInstance().compute(g, result.tree()), result.cost());
+        }
+    }
+
+    @Test
+    public void largePathLikeInstance() {
+        RandomGenerator random = RandomGeneratorFactory.of("L32X64MixRandom").create(4523452);
+        int n = 100000;
+        // Heavy demands along a path over shuffled vertices, and light random demands
+        int[] order = new int[n];
+        Combinatorics.fillRandomPermutation(order, random);
+        GraphBuilder builder = new GraphBuilder().setNumberOfVertices(n);
+        for (int i = 1; i < n; ++i) {
+            builder.addEdge(order[i - 1], order[i], 1000 + random.nextInt(1000));
+        }
+        for (int i = 0; i < n; ++i) {
+            int a = random.nextInt(n), b = random.nextInt(n);
+            if (a != b) {
+                builder.addEdge(a, b, 1 + random.nextInt(10));
+            }
+        }
+        Graph g = builder.result();
+        BestTreeAlgorithm algorithm = new MultilevelBestTreeAlgorithm<>(
+                new BestMSTOverEdgeShuffle(), EdgeSwitchMutation.getInstance(), 50, 100);
+        Timer timer = Timer.newFixedTimer(System.currentTimeMillis(), 3000);
+        BestTreeAlgorithm.Result result = algorithm.solve(g, 2, timer, random, (t, c) -> {}).result();
+        checkTree(result.tree(), n, 2);
+        Assert.assertEquals(new TarjanCostComputationAlgorithm(n).compute(g, result.tree()), result.cost());
+        // The projections shall keep the path mostly intact, so the result is not much worse than a single MST
+        long mstCost = new BestMSTOverEdgeShuffle().construct(g, 2).next(Timer.dummyTimer(), random).cost();
+        Assert.assertTrue(result.cost() < 2 * mstCost);
+    }
+}
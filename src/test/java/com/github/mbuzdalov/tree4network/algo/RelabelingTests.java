@@ -0,0 +1,70 @@
+package com.github.mbuzdalov.tree4network.algo;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.GraphBuilder;
+import com.github.mbuzdalov.tree4network.cost.NaiveCostComputationAlgorithm;
+import com.github.mbuzdalov.tree4network.mut.EdgeSwitchMutation;
+import com.github.mbuzdalov.tree4network.util.Timer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+public class RelabelingTests {
+    private static Graph randomGraph(Random random, int n, int m) {
+        GraphBuilder builder = new GraphBuilder().setNumberOfVertices(n);
+        for (int i = 0; i < m; ++i) {
+            int a = random.nextInt(n), b = random.nextInt(n);
+            if (a != b) {
+                builder.addEdge(a, b, 1 + random.nextInt(100));
+            }
+        }
+        return builder.result();
+    }
+
+    @Test
+    public void orderIsPermutation() {
+        Random random = new Random(5234523452L);
+        for (int run = 0; run < 10; ++run) {
+            int n = 1 + random.nextInt(200);
+            Graph g = randomGraph(random, n, random.nextInt(3 * n));
+            int[] order = RelabeledBestTreeAlgorithm.heavyEdgeOrder(g);
+            boolean[] seen = new boolean[n];
+            for (int v : order) {
+                Assert.assertFalse(seen[v]);
+                seen[v] = true;
+            }
+        }
+    }
+
+    @Test
+    public void heaviestNeighboursComeFirst() {
+        Graph g = new GraphBuilder()
+                .addEdge(0, 1, 1).addEdge(0, 2, 5).addEdge(2, 3, 100).addEdge(0, 4, 3)
+                .result();
+        // 2 is the heaviest vertex, then come its neighbours 3 and 0 by weight, then the neighbours 4 and 1 of 0
+        Assert.assertArrayEquals(new int[] {2, 4, 0, 1, 3}, RelabeledBestTreeAlgorithm.heavyEdgeOrder(g));
+    }
+
+    @Test
+    public void treesAreMappedBack() {
+        Random random = new Random(7345234523L);
+        RandomGenerator generator = RandomGeneratorFactory.of("L32X64MixRandom").create(8234523);
+        BestTreeAlgorithm algorithm = new RelabeledBestTreeAlgorithm(
+                new SimpleLocalSearch<>(new BestMSTOverEdgeShuffle(), EdgeSwitchMutation.getInstance()));
+        for (int run = 0; run < 10; ++run) {
+            int n = 2 + random.nextInt(100);
+            Graph g = randomGraph(random, n, random.nextInt(5 * n));
+            BestTreeAlgorithm.ResultSupplier supplier = algorithm.construct(g, 3);
+            for (int step = 0; step < 20; ++step) {
+                BestTreeAlgorithm.Result result = supplier.next(Timer.dummyTimer(), generator);
+                BoundedSimpleGraph tree = result.tree();
+                Assert.assertEquals(n - 1, tree.nEdges());
+                Assert.assertEquals(result.cost(), NaiveCostComputationAlgorithm.getInstance().compute(g, tree));
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.mbuzdalov.tree4network.algo;
+
+import com.github.mbuzdalov.tree4network.DynamicGraph;
+import com.github.mbuzdalov.tree4network.GraphBuilder;
+import com.github.mbuzdalov.tree4network.cost.NaiveCostComputationAlgorithm;
+import com.github.mbuzdalov.tree4network.mut.EdgeSwitchMutation;
+import com.github.mbuzdalov.tree4network.util.Timer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+public class ReoptimizationTests {
+    @Test
+    public void reoptimizedTreesAreNotWorse() {
+        RandomGenerator random = RandomGeneratorFactory.of("L32X64MixRandom").create(7345234);
+        int n = 60;
+        GraphBuilder builder = new GraphBuilder().setNumberOfVertices(n).setMergeParallelEdges(true);
+        for (int i = 0; i < 400; ++i) {
+            int a = random.nextInt(n), b = random.nextInt(n);
+            if (a != b) {
+                builder.addEdge(a, b, 1 + random.nextInt(100));
+            }
+        }
+        DynamicGraph graph = new DynamicGraph(builder.result());
+        BestTreeAlgorithm.Result result = new BestMSTOverEdgeShuffle().construct(graph, 3)
+                .next(Timer.dummyTimer(), random);
+        Reoptimization<?> reoptimization = new Reoptimization<>(EdgeSwitchMutation.getInstance());
+
+        for (int round = 0; round < 5; ++round) {
+            for (int i = 0; i < 20; ++i) {
+                int a = random.nextInt(n), b = random.nextInt(n);
+                if (a != b) {
+                    graph.setWeight(a, b, random.nextInt(200));
+                }
+            }
+            Timer timer = Timer.newFixedTimer(System.currentTimeMillis(), 1000);
+            BestTreeAlgorithm.Result previous = result;
+            result = reoptimization.reoptimize(graph, previous, timer, random, (t, c) -> {}).result();
+            Assert.assertTrue(result.cost()
+                    <= NaiveCostComputationAlgorithm.getInstance().compute(graph, previous.tree()));
+            Assert.assertEquals(NaiveCostComputationAlgorithm.getInstance().compute(graph, result.tree()),
+                    result.cost());
+        }
+    }
+}
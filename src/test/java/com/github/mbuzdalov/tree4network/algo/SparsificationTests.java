@@ -0,0 +1,93 @@
+package com.github.mbuzdalov.tree4network.algo;
+
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.GraphBuilder;
+import com.github.mbuzdalov.tree4network.cost.NaiveCostComputationAlgorithm;
+import com.github.mbuzdalov.tree4network.mut.EdgeSwitchMutation;
+import com.github.mbuzdalov.tree4network.util.Timer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+public class SparsificationTests {
+    @Test
+    public void heaviestEdgesAreKept() {
+        Graph g = new GraphBuilder()
+                .addEdge(0, 1, 50).addEdge(1, 2, 30).addEdge(2, 3, 10).addEdge(0, 3, 6).addEdge(1, 3, 4)
+                .result();
+        Graph half = SparsifiedBestTreeAlgorithm.sparsify(g, 0.5);
+        Assert.assertEquals(4, half.nVertices());
+        Assert.assertEquals(1, half.nEdges());
+        Assert.assertEquals(50, half.getWeight(0, 0));
+
+        Graph most = SparsifiedBestTreeAlgorithm.sparsify(g, 0.85);
+        Assert.assertEquals(3, most.nEdges());
+        Assert.assertEquals(0, most.degree(0) + most.degree(3) - 2);
+
+        Assert.assertEquals(5, SparsifiedBestTreeAlgorithm.sparsify(g, 1).nEdges());
+    }
+
+    @Test
+    public void resultsHaveFullCosts() {
+        RandomGenerator random = RandomGeneratorFactory.of("L32X64MixRandom").create(234523);
+        GraphBuilder builder = new GraphBuilder().setNumberOfVertices(100);
+        for (int i = 0; i < 1000; ++i) {
+            int a = random.nextInt(100), b = random.nextInt(100);
+            if (a != b) {
+                builder.addEdge(a, b, 1 + random.nextInt(1000) * random.nextInt(1000) / 999);
+            }
+        }
+        Graph g = builder.result();
+        BestTreeAlgorithm algorithm = new SparsifiedBestTreeAlgorithm(
+                new SimpleLocalSearch<>(new BestMSTOverEdgeShuffle(), EdgeSwitchMutation.getInstance()), 0.8);
+
+        BestTreeAlgorithm.ResultSupplier supplier = algorithm.construct(g, 3);
+        for (int i = 0; i < 20; ++i) {
+            BestTreeAlgorithm.Result result = supplier.next(Timer.dummyTimer(), random);
+            Assert.assertEquals(NaiveCostComputationAlgorithm.getInstance().compute(g, result.tree()), result.cost());
+        }
+
+        Timer timer = Timer.newFixedTimer(System.currentTimeMillis(), 200);
+        BestTreeAlgorithm.ExtendedResult result = algorithm.solve(g, 3, timer, random, (t, c) -> {});
+        Assert.assertEquals(NaiveCostComputationAlgorithm.getInstance().compute(g, result.result().tree()),
+                result.result().cost());
+    }
+
+    @Test
+    public void incumbentIsRescoredPeriodically() {
+        RandomGenerator random = RandomGeneratorFactory.of("L32X64MixRandom").create(734534);
+        GraphBuilder builder = new GraphBuilder().setNumberOfVertices(100);
+        for (int i = 0; i < 1000; ++i) {
+            int a = random.nextInt(100), b = random.nextInt(100);
+            if (a != b) {
+                builder.addEdge(a, b, 1 + random.nextInt(1000) * random.nextInt(1000) / 999);
+            }
+        }
+        Graph g = builder.result();
+        BestTreeAlgorithm algorithm = new SparsifiedBestTreeAlgorithm(
+                new SimpleLocalSearch<>(new BestMSTOverEdgeShuffle(), EdgeSwitchMutation.getInstance()), 0.8);
+
+        // Every query takes 10 ms of the fake time, so there are many rescoring intervals
+        Timer timer = new Timer() {
+            private long time = 0;
+
+            @Override
+            public boolean shouldInterrupt() {
+                return time > 10000;
+            }
+
+            @Override
+            public long timeConsumedMillis() {
+                return time += 10;
+            }
+        };
+        List<Long> logged = new ArrayList<>();
+        BestTreeAlgorithm.ExtendedResult result = algorithm.solve(g, 3, timer, random, (t, c) -> logged.add(c));
+        Assert.assertTrue(logged.size() > 1);
+        Assert.assertEquals(logged.get(logged.size() - 1).longValue(), result.result().cost());
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.mbuzdalov.tree4network.cost;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.GraphBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CachingCostTests {
+    private static Graph demands() {
+        return new GraphBuilder()
+                .addEdge(0, 3, 5)
+                .addEdge(1, 2, 7)
+                .addEdge(0, 2, 1)
+                .addEdge(1, 3, 2)
+                .result();
+    }
+
+    private static BoundedSimpleGraph path(int... vertices) {
+        BoundedSimpleGraph result = new BoundedSimpleGraph(vertices.length, 2);
+        for (int i = 1; i < vertices.length; ++i) {
+            result.addEdge(vertices[i - 1], vertices[i]);
+        }
+        return result;
+    }
+
+    @Test
+    public void sameEdgesInDifferentOrder() {
+        Graph g = demands();
+        CachingCostComputationAlgorithm caching = new CachingCostComputationAlgorithm(
+                NaiveCostComputationAlgorithm.getInstance(), 10);
+        long cost = caching.compute(g, path(0, 1, 2, 3));
+        Assert.assertEquals(NaiveCostComputationAlgorithm.getInstance().compute(g, path(0, 1, 2, 3)), cost);
+        Assert.assertEquals(cost, caching.compute(g, path(3, 2, 1, 0)));
+        Assert.assertEquals(1, caching.hits());
+        Assert.assertEquals(1, caching.misses());
+        caching.compute(g, path(0, 2, 1, 3));
+        Assert.assertEquals(1, caching.hits());
+        Assert.assertEquals(2, caching.misses());
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        Graph g = demands();
+        CachingCostComputationAlgorithm caching = new CachingCostComputationAlgorithm(
+                NaiveCostComputationAlgorithm.getInstance(), 2);
+        caching.compute(g, path(0, 1, 2, 3));
+        caching.compute(g, path(0, 2, 1, 3));
+        caching.compute(g, path(0, 1, 2, 3));
+        caching.compute(g, path(0, 3, 1, 2));
+        Assert.assertEquals(1, caching.hits());
+        caching.compute(g, path(0, 1, 2, 3));
+        Assert.assertEquals(2, caching.hits());
+        caching.compute(g, path(0, 2, 1, 3));
+        Assert.assertEquals(2, caching.hits());
+        Assert.assertEquals(4, caching.misses());
+    }
+
+    @Test
+    public void costsAboveBoundAreNotCached() {
+        Graph g = demands();
+        CostComputationAlgorithm inexact = new CostComputationAlgorithm() {
+            @Override
+            public long compute(Graph weights, BoundedSimpleGraph tree) {
+                return NaiveCostComputationAlgorithm.getInstance().compute(weights, tree);
+            }
+
+            @Override
+            public long compute(Graph weights, BoundedSimpleGraph tree, long upperBound) {
+                long result = compute(weights, tree);
+                return result > upperBound ? Long.MAX_VALUE : result;
+            }
+        };
+        CachingCostComputationAlgorithm caching = new CachingCostComputationAlgorithm(inexact, 10);
+        BoundedSimpleGraph tree = path(0, 1, 2, 3);
+        long cost = inexact.compute(g, tree);
+        Assert.assertEquals(Long.MAX_VALUE, caching.compute(g, tree, cost - 1));
+        Assert.assertEquals(cost, caching.compute(g, tree));
+        Assert.assertEquals(cost, caching.compute(g, tree, cost - 1));
+        Assert.assertEquals(1, caching.hits());
+    }
+
+    @Test
+    public void batchUsesCache() {
+        Graph g = demands();
+        CachingCostComputationAlgorithm caching = new CachingCostComputationAlgorithm(
+                NaiveCostComputationAlgorithm.getInstance(), 10);
+        BoundedSimpleGraph[] trees = { path(0, 1, 2, 3), path(0, 2, 1, 3), path(3, 2, 1, 0) };
+        long[] costs = caching.computeBatch(g, trees);
+        for (int i = 0; i < trees.length; ++i) {
+            Assert.assertEquals(NaiveCostComputationAlgorithm.getInstance().compute(g, trees[i]), costs[i]);
+        }
+        Assert.assertEquals(0, caching.hits());
+        Assert.assertEquals(3, caching.misses());
+        Assert.assertEquals(costs[1], caching.compute(g, path(3, 1, 2, 0)));
+        Assert.assertEquals(1, caching.hits());
+    }
+}
@@ -13,6 +13,7 @@ public class CostPerformanceEvaluation {
         int d = 3;
         CostComputationAlgorithm naive = NaiveCostComputationAlgorithm.getInstance();
         CostComputationAlgorithm rmq = new RMQCostComputationAlgorithm(v);
+        CostComputationAlgorithm tarjan = new TarjanCostComputationAlgorithm(v);
 
         Random random = new Random(2354543532424L);
 
@@ -46,10 +47,13 @@ public class CostPerformanceEvaluation {
                 long t1 = System.nanoTime();
                 long rmqCost = rmq.compute(g, tree);
                 long t2 = System.nanoTime();
-                if (naiveCost != rmqCost) {
+                long tarjanCost = tarjan.compute(g, tree);
+                long t3 = System.nanoTime();
+                if (naiveCost != rmqCost || naiveCost != tarjanCost) {
                     throw new AssertionError();
                 }
-                System.out.println("V = " + v + ", E = " + e + ": ratio = " + ((double) (t1 - t0) / (t2 - t1)));
+                System.out.println("V = " + v + ", E = " + e + ": ratio = " + ((double) (t1 - t0) / (t2 - t1))
+                        + ", RMQ/Tarjan ratio = " + ((double) (t2 - t1) / (t3 - t2)));
             }
         }
     }
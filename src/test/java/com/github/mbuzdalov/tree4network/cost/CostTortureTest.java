@@ -3,11 +3,16 @@ package com.github.mbuzdalov.tree4network.cost;
 import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
 import com.github.mbuzdalov.tree4network.Graph;
 import com.github.mbuzdalov.tree4network.GraphBuilder;
+import com.github.mbuzdalov.tree4network.rmq.FlatSparseTableRMQ;
+import com.github.mbuzdalov.tree4network.rmq.LinSpaceIncrementalRMQ;
 import com.github.mbuzdalov.tree4network.util.DisjointSet;
+import com.github.mbuzdalov.tree4network.util.Edge;
+import com.github.mbuzdalov.tree4network.util.Graphs;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 public class CostTortureTest {
     @Test
@@ -50,4 +55,323 @@ public class CostTortureTest {
             Assert.assertEquals(naiveCost, rmqCost);
         }
     }
+
+    @Test
+    public void longPathTest() {
+        int n = 100000;
+        Random random = new Random(823452345L);
+        GraphBuilder builder = new GraphBuilder().setNumberOfVertices(n);
+        int[] sources = new int[3 * n], targets = new int[3 * n], weights = new int[3 * n];
+        for (int i = 0; i < sources.length; ++i) {
+            do {
+                sources[i] = random.nextInt(n);
+                targets[i] = random.nextInt(n);
+            } while (sources[i] == targets[i]);
+            weights[i] = random.nextInt(1000);
+            builder.addEdge(sources[i], targets[i], weights[i]);
+        }
+        Graph g = builder.result();
+        // The path 0 - 1 - ... - (n - 1), and the same path rotated to start at vertex k + 1
+        BoundedSimpleGraph tree = new BoundedSimpleGraph(n, 2);
+        for (int v = 1; v < n; ++v) {
+            tree.addEdge(v - 1, v);
+        }
+        int k = n / 3;
+        long expected = 0, expectedRotated = 0;
+        for (int i = 0; i < sources.length; ++i) {
+            expected += (long) (weights[i]) * Math.abs(sources[i] - targets[i]);
+            int p1 = (sources[i] - k - 1 + n) % n, p2 = (targets[i] - k - 1 + n) % n;
+            expectedRotated += (long) (weights[i]) * Math.abs(p1 - p2);
+        }
+
+        CostComputationAlgorithm[] algorithms = {
+                new RMQCostComputationAlgorithm(n),
+                new RMQCostComputationAlgorithm(n, false, true, FlatSparseTableRMQ::new),
+                new RMQCostComputationAlgorithm(n, false, LinSpaceIncrementalRMQ::new),
+                new DefaultCostComputationAlgorithm(n),
+                new TarjanCostComputationAlgorithm(n),
+        };
+        for (CostComputationAlgorithm algorithm : algorithms) {
+            Assert.assertEquals(expected, algorithm.compute(g, tree));
+        }
+        tree.removeEdge(k, k + 1);
+        tree.addEdge(0, n - 1);
+        for (CostComputationAlgorithm algorithm : algorithms) {
+            Assert.assertEquals(expectedRotated, algorithm.compute(g, tree));
+        }
+    }
+
+    private static Graph randomGraph(Random random, int v, int e) {
+        GraphBuilder builder = new GraphBuilder().setNumberOfVertices(v);
+        for (int i = 0; i < e; ++i) {
+            int v1, v2;
+            do {
+                v1 = random.nextInt(v);
+                v2 = random.nextInt(v);
+            } while (v1 == v2);
+            builder.addEdge(v1, v2, random.nextInt(1000));
+        }
+        return builder.result();
+    }
+
+    private static BoundedSimpleGraph randomTree(Random random, int v, int d) {
+        BoundedSimpleGraph tree = new BoundedSimpleGraph(v, d);
+        DisjointSet ds = new DisjointSet(v);
+        while (tree.nEdges() + 1 < v) {
+            int v1, v2;
+            do {
+                v1 = random.nextInt(v);
+                v2 = random.nextInt(v);
+            } while (tree.degree(v1) == d || tree.degree(v2) == d || ds.get(v1) == ds.get(v2));
+            ds.unite(v1, v2);
+            tree.addEdge(v1, v2);
+        }
+        return tree;
+    }
+
+    @Test
+    public void tarjanTortureTest() {
+        int maxV = 1000;
+        int maxE = 10000;
+        CostComputationAlgorithm naive = NaiveCostComputationAlgorithm.getInstance();
+        CostComputationAlgorithm tarjan = new TarjanCostComputationAlgorithm(maxV);
+
+        Random random = new Random(6234523454353L);
+
+        for (int run = 0; run < 10; ++run) {
+            int v = maxV / 2 + random.nextInt(maxV - maxV / 2 + 1);
+            int e = maxE / 2 + random.nextInt(maxE - maxE / 2 + 1);
+            int d = 2 + run % 3;
+            Graph g = randomGraph(random, v, e);
+            BoundedSimpleGraph tree = randomTree(random, v, d);
+            Assert.assertEquals(naive.compute(g, tree), tarjan.compute(g, tree));
+        }
+    }
+
+    @Test
+    public void linearRMQTortureTest() {
+        int maxV = 1000;
+        int maxE = 10000;
+        CostComputationAlgorithm naive = NaiveCostComputationAlgorithm.getInstance();
+        CostComputationAlgorithm linear = new RMQCostComputationAlgorithm(maxV, false, LinSpaceIncrementalRMQ::new);
+
+        Random random = new Random(8345345234524L);
+
+        for (int run = 0; run < 10; ++run) {
+            int v = 1 + random.nextInt(maxV);
+            int e = random.nextInt(maxE + 1);
+            int d = 2 + run % 3;
+            Graph g = v == 1 ? new GraphBuilder().setNumberOfVertices(1).result() : randomGraph(random, v, e);
+            BoundedSimpleGraph tree = randomTree(random, v, d);
+            Assert.assertEquals(naive.compute(g, tree), linear.compute(g, tree));
+        }
+    }
+
+    @Test
+    public void eulerTourRMQTortureTest() {
+        int maxV = 1000;
+        int maxE = 10000;
+        CostComputationAlgorithm naive = NaiveCostComputationAlgorithm.getInstance();
+        CostComputationAlgorithm euler = new RMQCostComputationAlgorithm(maxV, false, false, FlatSparseTableRMQ::new);
+
+        Random random = new Random(3452345234524L);
+
+        for (int run = 0; run < 10; ++run) {
+            int v = 1 + random.nextInt(maxV);
+            int e = random.nextInt(maxE + 1);
+            int d = 2 + run % 3;
+            Graph g = v == 1 ? new GraphBuilder().setNumberOfVertices(1).result() : randomGraph(random, v, e);
+            BoundedSimpleGraph tree = randomTree(random, v, d);
+            Assert.assertEquals(naive.compute(g, tree), euler.compute(g, tree));
+        }
+    }
+
+    @Test
+    public void denseTortureTest() {
+        int maxV = 300;
+        CostComputationAlgorithm naive = NaiveCostComputationAlgorithm.getInstance();
+        CostComputationAlgorithm dense = new DenseCostComputationAlgorithm(maxV);
+
+        Random random = new Random(7345234524334L);
+
+        for (int run = 0; run < 10; ++run) {
+            int v = 1 + random.nextInt(maxV);
+            int e = random.nextInt(v * v + 1);
+            int d = 2 + run % 3;
+            Graph g = v == 1 ? new GraphBuilder().setNumberOfVertices(1).result() : randomGraph(random, v, e);
+            BoundedSimpleGraph tree = randomTree(random, v, d);
+            Assert.assertEquals(naive.compute(g, tree), dense.compute(g, tree));
+        }
+    }
+
+    @Test
+    public void parallelTortureTest() {
+        int maxV = 2000;
+        int maxE = 100000;
+        int maxD = 3;
+        CostComputationAlgorithm tarjan = new TarjanCostComputationAlgorithm(maxV);
+        CostComputationAlgorithm parallel = new ParallelCostComputationAlgorithm(maxV, new ForkJoinPool(4));
+
+        Random random = new Random(823452345234L);
+
+        for (int run = 0; run < 10; ++run) {
+            int v = maxV / 2 + random.nextInt(maxV - maxV / 2 + 1);
+            int e = maxE / 2 + random.nextInt(maxE - maxE / 2 + 1);
+            Graph g = randomGraph(random, v, e);
+            BoundedSimpleGraph tree = randomTree(random, v, maxD);
+            Assert.assertEquals(tarjan.compute(g, tree), parallel.compute(g, tree));
+        }
+    }
+
+    @Test
+    public void batchTortureTest() {
+        int maxV = 1000;
+        int maxE = 40000;
+        int maxD = 3;
+        CostComputationAlgorithm tarjan = new TarjanCostComputationAlgorithm(maxV);
+        CostComputationAlgorithm rmq = new RMQCostComputationAlgorithm(maxV);
+        CostComputationAlgorithm parallel = new ParallelCostComputationAlgorithm(maxV, new ForkJoinPool(4));
+
+        Random random = new Random(2345234523411L);
+
+        for (int run = 0; run < 10; ++run) {
+            int v = maxV / 2 + random.nextInt(maxV - maxV / 2 + 1);
+            int e = maxE / 2 + random.nextInt(maxE - maxE / 2 + 1);
+            Graph g = randomGraph(random, v, e);
+            BoundedSimpleGraph[] trees = new BoundedSimpleGraph[1 + random.nextInt(20)];
+            long[] expected = new long[trees.length];
+            for (int i = 0; i < trees.length; ++i) {
+                trees[i] = randomTree(random, v, maxD);
+                expected[i] = tarjan.compute(g, trees[i]);
+            }
+            Assert.assertArrayEquals(expected, rmq.computeBatch(g, trees));
+            Assert.assertArrayEquals(expected, parallel.computeBatch(g, trees));
+        }
+    }
+
+    @Test
+    public void boundedTortureTest() {
+        int maxV = 500;
+        int maxE = 5000;
+        int maxD = 3;
+        CostComputationAlgorithm naive = NaiveCostComputationAlgorithm.getInstance();
+        CostComputationAlgorithm[] algorithms = {
+                new RMQCostComputationAlgorithm(maxV, false),
+                new RMQCostComputationAlgorithm(maxV, true),
+                new TarjanCostComputationAlgorithm(maxV),
+                new DefaultCostComputationAlgorithm(maxV),
+        };
+
+        Random random = new Random(5234523452L);
+
+        for (int run = 0; run < 20; ++run) {
+            int v = maxV / 2 + random.nextInt(maxV - maxV / 2 + 1);
+            int e = maxE / 2 + random.nextInt(maxE - maxE / 2 + 1);
+            Graph g = randomGraph(random, v, e);
+            BoundedSimpleGraph tree = randomTree(random, v, maxD);
+            long cost = naive.compute(g, tree);
+            for (long bound : new long[] { cost - 1 - random.nextInt(1000), cost - 1, cost, cost + random.nextInt(1000) }) {
+                for (CostComputationAlgorithm algorithm : algorithms) {
+                    long result = algorithm.compute(g, tree, bound);
+                    if (bound >= cost) {
+                        Assert.assertEquals(cost, result);
+                    } else {
+                        Assert.assertTrue(result > bound);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void relinkDeltaTortureTest() {
+        int maxV = 300;
+        int maxE = 3000;
+        int maxD = 3;
+        CostComputationAlgorithm naive = NaiveCostComputationAlgorithm.getInstance();
+        CostComputationAlgorithm rmq = new RMQCostComputationAlgorithm(maxV);
+
+        Random random = new Random(9435236453221L);
+
+        for (int run = 0; run < 10; ++run) {
+            int v = maxV / 2 + random.nextInt(maxV - maxV / 2 + 1);
+            int e = maxE / 2 + random.nextInt(maxE - maxE / 2 + 1);
+            Graph g = randomGraph(random, v, e);
+            BoundedSimpleGraph tree = randomTree(random, v, maxD);
+            long treeCost = naive.compute(g, tree);
+            DisjointSet ds = new DisjointSet(v);
+
+            for (int move = 0; move < 100; ++move) {
+                Edge removed = Graphs.getNthEdge(tree, random.nextInt(tree.nEdges()));
+                BoundedSimpleGraph newTree = new BoundedSimpleGraph(tree);
+                newTree.removeEdge(removed.v1(), removed.v2());
+                ds.reset();
+                for (int v1 = 0; v1 < v; ++v1) {
+                    for (int i = 0; i < newTree.degree(v1); ++i) {
+                        ds.unite(v1, newTree.getDestination(v1, i));
+                    }
+                }
+                int a1, a2;
+                do {
+                    a1 = random.nextInt(v);
+                    a2 = random.nextInt(v);
+                } while (newTree.degree(a1) == maxD || newTree.degree(a2) == maxD || ds.get(a1) == ds.get(a2));
+                newTree.addEdge(a1, a2);
+
+                long expected = naive.compute(g, newTree) - treeCost;
+                long found = rmq.computeRelinkDelta(g, tree, removed.v1(), removed.v2(), a1, a2);
+                Assert.assertEquals(expected, found);
+            }
+        }
+    }
+
+    @Test
+    public void edgeLoadTortureTest() {
+        int maxV = 300;
+        int maxE = 3000;
+        int maxD = 3;
+        RMQCostComputationAlgorithm rmq = new RMQCostComputationAlgorithm(maxV);
+        int[] parents = new int[maxV];
+        long[] loads = new long[maxV];
+
+        Random random = new Random(7324523423L);
+
+        for (int run = 0; run < 10; ++run) {
+            int v = maxV / 2 + random.nextInt(maxV - maxV / 2 + 1);
+            int e = maxE / 2 + random.nextInt(maxE - maxE / 2 + 1);
+            Graph g = randomGraph(random, v, e);
+            BoundedSimpleGraph tree = randomTree(random, v, maxD);
+
+            long cost = rmq.computeWithEdgeLoads(g, tree, parents, loads);
+            Assert.assertEquals(NaiveCostComputationAlgorithm.getInstance().compute(g, tree), cost);
+            Assert.assertEquals(-1, parents[0]);
+            Assert.assertEquals(0, loads[0]);
+
+            DisjointSet ds = new DisjointSet(v);
+            for (int child = 1; child < v; ++child) {
+                int parent = parents[child];
+                Assert.assertTrue(tree.hasEdge(child, parent));
+                ds.reset();
+                for (int v1 = 0; v1 < v; ++v1) {
+                    for (int i = 0; i < tree.degree(v1); ++i) {
+                        int v2 = tree.getDestination(v1, i);
+                        if (v1 != child || v2 != parent) {
+                            if (v1 != parent || v2 != child) {
+                                ds.unite(v1, v2);
+                            }
+                        }
+                    }
+                }
+                long expected = 0;
+                for (int v1 = 0; v1 < v; ++v1) {
+                    for (int i = 0; i < g.degree(v1); ++i) {
+                        if (ds.get(v1) != ds.get(g.getDestination(v1, i))) {
+                            expected += g.getWeight(v1, i);
+                        }
+                    }
+                }
+                Assert.assertEquals(expected / 2, loads[child]);
+            }
+        }
+    }
 }
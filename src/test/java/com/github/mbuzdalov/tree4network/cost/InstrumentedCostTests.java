@@ -0,0 +1,33 @@
+package com.github.mbuzdalov.tree4network.cost;
+
+import com.github.mbuzdalov.tree4network.BoundedSimpleGraph;
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.GraphBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InstrumentedCostTests {
+    @Test
+    public void callsAreCounted() {
+        Graph g = new GraphBuilder().addEdge(0, 2, 3).addEdge(1, 2, 4).result();
+        BoundedSimpleGraph tree = new BoundedSimpleGraph(3, 2);
+        tree.addEdge(0, 1);
+        tree.addEdge(1, 2);
+
+        CostComputationAlgorithm base = NaiveCostComputationAlgorithm.getInstance();
+        CostComputationAlgorithm instrumented = new InstrumentedCostComputationAlgorithm(base, "callsAreCounted");
+        Assert.assertEquals(base.compute(g, tree), instrumented.compute(g, tree));
+        Assert.assertArrayEquals(base.computeBatch(g, new BoundedSimpleGraph[] { tree, tree }),
+                instrumented.computeBatch(g, new BoundedSimpleGraph[] { tree, tree }));
+
+        CostStatistics statistics = CostStatistics.forCaller("callsAreCounted");
+        Assert.assertEquals(2, statistics.getCalls());
+        Assert.assertEquals(3, statistics.getTrees());
+        long histogramSum = 0;
+        for (long count : statistics.getLatencyHistogram()) {
+            histogramSum += count;
+        }
+        Assert.assertEquals(2, histogramSum);
+        Assert.assertTrue(CostStatistics.all().contains(statistics));
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.mbuzdalov.tree4network.io;
+
+import com.github.mbuzdalov.tree4network.Graph;
+import com.github.mbuzdalov.tree4network.GraphBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+public class BinaryCSRTests {
+    private static void assertSameGraphs(Graph expected, Graph actual) {
+        Assert.assertEquals(expected.nVertices(), actual.nVertices());
+        Assert.assertEquals(expected.nEdges(), actual.nEdges());
+        for (int v = 0; v < expected.nVertices(); ++v) {
+            Assert.assertEquals(expected.edgesBegin(v), actual.edgesBegin(v));
+            Assert.assertEquals(expected.upperEdgesBegin(v), actual.upperEdgesBegin(v));
+            Assert.assertEquals(expected.edgesEnd(v), actual.edgesEnd(v));
+            Assert.assertEquals(expected.degree(v), actual.degree(v));
+            for (int i = 0; i < expected.degree(v); ++i) {
+                Assert.assertEquals(expected.getDestination(v, i), actual.getDestination(v, i));
+                Assert.assertEquals(expected.getWeight(v, i), actual.getWeight(v, i));
+            }
+        }
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        Random random = new Random(9234523452L);
+        File file = File.createTempFile("graph", ".csr");
+        try {
+            for (int run = 0; run < 10; ++run) {
+                int n = random.nextInt(300);
+                GraphBuilder builder = new GraphBuilder().setNumberOfVertices(n);
+                for (int i = n < 2 ? 0 : random.nextInt(5 * n); i > 0; --i) {
+                    int a = random.nextInt(n), b = random.nextInt(n);
+                    if (a != b) {
+                        builder.addEdge(a, b, random.nextInt(1000000));
+                    }
+                }
+                Graph graph = builder.result();
+                BinaryCSR.write(graph, file);
+                assertSameGraphs(graph, BinaryCSR.map(file));
+            }
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void convertedCSV() throws IOException {
+        Random random = new Random(52345234623L);
+        File csv = File.createTempFile("graph", ".csv.gz");
+        File file = File.createTempFile("graph", ".csr");
+        try {
+            for (int run = 0; run < 10; ++run) {
+                int n = 2 + random.nextInt(300);
+                try (PrintWriter out = new PrintWriter(new GZIPOutputStream(new FileOutputStream(csv)))) {
+                    out.println("src,dst,weight");
+                    // few vertices and many edges, so that there are parallel edges in both directions
+                    for (int i = random.nextInt(5 * n); i > 0; --i) {
+                        int a = random.nextInt(n), b = random.nextInt(n);
+                        if (a != b) {
+                            out.println(a + "," + b + "," + random.nextInt(1000000));
+                        }
+                    }
+                }
+                BinaryCSR.convertGZippedCSV(csv, file);
+                assertSameGraphs(GraphFromCSV.fromGZippedFile(csv), BinaryCSR.map(file));
+            }
+        } finally {
+            Assert.assertTrue(csv.delete());
+            Assert.assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void notACSRFile() throws IOException {
+        File file = File.createTempFile("graph", ".csr");
+        try {
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write("src,dst,weight\n0,1,2\n".getBytes());
+            }
+            BinaryCSR.map(file);
+            Assert.fail("A CSV file shall not be accepted as binary CSR");
+        } catch (IOException expected) {
+            // this is what shall happen
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+
+    // Overwrites the little-endian int with the given index, counting from the beginning of the file
+    private static void overwrite(File file, long index, int value) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4 * index);
+            raf.writeInt(Integer.reverseBytes(value));
+        }
+    }
+
+    private static void assertRejected(File file, String what) {
+        try {
+            BinaryCSR.map(file);
+            Assert.fail("A file with " + what + " shall not be accepted");
+        } catch (IOException expected) {
+            // this is what shall happen
+        }
+    }
+
+    @Test
+    public void corruptedFiles() throws IOException {
+        Graph graph = new GraphBuilder()
+                .addEdge(0, 1, 5).addEdge(1, 2, 7).addEdge(0, 3, 2).addEdge(2, 3, 1)
+                .result();
+        int n = graph.nVertices();
+        // the header has 4 ints, then n + 1 offsets, n upper offsets, m destinations and m weights
+        long offsets = 4, upperOffsets = offsets + n + 1, destinations = upperOffsets + n;
+        File file = File.createTempFile("graph", ".csr");
+        try {
+            BinaryCSR.write(graph, file);
+            overwrite(file, destinations + 1, n);
+            assertRejected(file, "a destination out of range");
+
+            BinaryCSR.write(graph, file);
+            overwrite(file, destinations + graph.edgesBegin(1), 2);
+            assertRejected(file, "an upper destination in the lower part of a row");
+
+            BinaryCSR.write(graph, file);
+            overwrite(file, offsets + 2, graph.edgesBegin(1) - 1);
+            assertRejected(file, "non-monotone offsets");
+
+            BinaryCSR.write(graph, file);
+            overwrite(file, upperOffsets + 1, graph.edgesEnd(1) + 1);
+            assertRejected(file, "an upper offset outside of its row");
+
+            BinaryCSR.write(graph, file);
+            assertSameGraphs(graph, BinaryCSR.map(file));
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+}
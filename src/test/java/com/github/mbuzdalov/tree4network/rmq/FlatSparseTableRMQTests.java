@@ -0,0 +1,73 @@
+package com.github.mbuzdalov.tree4network.rmq;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class FlatSparseTableRMQTests {
+    private boolean next(int[] array) {
+        int n = array.length;
+        for (int i = 0; i < n; ++i) {
+            if (++array[i] < n) {
+                Arrays.fill(array, 0, i, 0);
+                return true;
+            }
+        }
+        return false;
+    }
+    @Test
+    public void allSmall() {
+        for (int size = 1; size <= 6; ++size) {
+            int[] array = new int[size];
+            NaiveRMQ naive = new NaiveRMQ(array);
+            FlatSparseTableRMQ flat = new FlatSparseTableRMQ(array);
+            do {
+                naive.reloadArray(size);
+                flat.reloadArray(size);
+                for (int l = 0; l < size; ++l) {
+                    for (int r = l + 1; r <= size; ++r) {
+                        int nq = naive.minimumIndex(l, r);
+                        int fq = flat.minimumIndex(l, r);
+                        int nv = array[nq];
+                        int fv = array[fq];
+                        if (nq != fq) {
+                            Assert.fail("Array: " + Arrays.toString(array) + ", l = " + l + ", r = " + r
+                                    + ", expected " + nq + " => " + nv + ", found " + fq + " => " + fv);
+                        }
+                    }
+                }
+            } while (next(array));
+        }
+    }
+
+    @Test
+    public void torture() {
+        Random random = new Random(141353423);
+        int maxSize = 50;
+        int[] array = new int[maxSize];
+        NaiveRMQ naive = new NaiveRMQ(array);
+        FlatSparseTableRMQ flat = new FlatSparseTableRMQ(array);
+        for (int run = 0; run < 1000; ++run) {
+            int size = run == 0 ? maxSize : 2 + random.nextInt(maxSize - 1);
+            for (int i = 0; i < size; ++i) {
+                array[i] = random.nextInt(10000) - 5000;
+            }
+            naive.reloadArray(size);
+            flat.reloadArray(size);
+            for (int l = 0; l < size; ++l) {
+                for (int r = l + 1; r <= size; ++r) {
+                    int ei = naive.minimumIndex(l, r);
+                    int fi = flat.minimumIndex(l, r);
+                    int ev = array[ei];
+                    int fv = array[fi];
+                    if (ei != fi) {
+                        Assert.fail("Array: " + Arrays.toString(array) + ", l = " + l + ", r = " + r
+                                + ", expected " + ei + " => " + ev + ", found " + fi + " => " + fv);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.mbuzdalov.tree4network.rmq;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.function.Function;
+
+public class ReloadRangeTests {
+    private void torture(Function<int[], RangeMinimumQuery> factory, long seed) {
+        Random random = new Random(seed);
+        int maxSize = 300;
+        int[] array = new int[maxSize];
+        NaiveRMQ naive = new NaiveRMQ(array);
+        RangeMinimumQuery rmq = factory.apply(array);
+        for (int run = 0; run < 50; ++run) {
+            int size = 2 + random.nextInt(maxSize - 1);
+            array[0] = random.nextInt(1000);
+            for (int i = 1; i < size; ++i) {
+                array[i] = array[i - 1] + 2 * random.nextInt(2) - 1;
+            }
+            rmq.reloadArray(size);
+            for (int change = 0; change < 20; ++change) {
+                // Swapping a step up with a step down keeps the adjacent values differing by one
+                int i = 1 + random.nextInt(size - 1);
+                int j = 1 + random.nextInt(size - 1);
+                if (array[i] - array[i - 1] == array[j] - array[j - 1]) {
+                    continue;
+                }
+                int from = Math.min(i, j), until = Math.max(i, j);
+                int delta = 2 * (array[from] - array[from - 1]);
+                for (int k = from; k < until; ++k) {
+                    array[k] -= delta;
+                }
+                rmq.reloadRange(from, until, size);
+                for (int q = 0; q < 100; ++q) {
+                    int a = random.nextInt(size), b = random.nextInt(size);
+                    int l = Math.min(a, b), r = Math.max(a, b) + 1;
+                    Assert.assertEquals(array[naive.minimumIndex(l, r)], array[rmq.minimumIndex(l, r)]);
+                    Assert.assertEquals(array[naive.minimumIndex(l, r)], rmq.minimumValue(l, r));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void linLogSpace() {
+        torture(LinLogSpaceRMQ::new, 5234523452345L);
+    }
+
+    @Test
+    public void flatSparseTable() {
+        torture(FlatSparseTableRMQ::new, 7345634563456L);
+    }
+
+    @Test
+    public void linSpaceIncremental() {
+        torture(LinSpaceIncrementalRMQ::new, 2345234562347L);
+    }
+}